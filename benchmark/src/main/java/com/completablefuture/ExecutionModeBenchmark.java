@@ -0,0 +1,74 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 
+ * @Description 比较不同执行方式下 CompletableFuture 评分一批车的耗时：固定线程池和公共池受线程数限制，耗时随车辆数线性增长，
+ *                虚拟线程的耗时基本不随车辆数变化。VIRTUAL_THREAD 需要 JDK 21，更低版本上该组参数在 Setup 中失败并报告原因。
+ *                运行：mvn package && java -jar target/benchmarks.jar ExecutionModeBenchmark
+ * @date  2026年10月18日上午10:55:21
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+
+    @Param({ "COMMON_POOL", "FIXED_POOL", "VIRTUAL_THREAD" })
+    ExecutionMode executionMode;
+
+    @Param({ "100", "1000", "5000" })
+    int carCount;
+
+    @Param({ "10" })
+    long latencyMillis;
+
+    ExecutorService executor;
+
+    List<Car> cars;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CompletableFutureExample.delayMillis = () -> latencyMillis;
+        executor = executionMode.newExecutor(Runtime.getRuntime().availableProcessors());
+        cars = new ArrayList<>(carCount);
+        for (int i = 1; i <= carCount; i++) {
+            cars.add(new Car(i, i % 10, "Model-" + i, 2000 + i % 20));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<Car> rate() {
+        return CompletableFutureExample.rate(cars, manufacturer -> CompletableFutureExample.rating(manufacturer, executor)).toCompletableFuture().join();
+    }
+}
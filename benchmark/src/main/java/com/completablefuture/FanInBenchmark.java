@@ -0,0 +1,95 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 
+ * @Description CompletableFuture.allOf 加一遍 join 取结果与 FanIn.allOf 的对比、CompletableFuture.anyOf 与 FanIn.anyOf 的对比：
+ *                先组合 batchSize 个未完成的 future，再逐个完成，直到拿到结果。
+ *                运行：mvn package && java -jar target/benchmarks.jar FanInBenchmark -prof gc
+ * @date  2026年10月18日下午9:55:31
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanInBenchmark {
+
+    @Param({ "100", "10000" })
+    int batchSize;
+
+    @Benchmark
+    public List<Integer> completableFutureAllOf() {
+        List<CompletableFuture<Integer>> futures = pending();
+        CompletableFuture<List<Integer>> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+        completeAll(futures);
+        return all.join();
+    }
+
+    @Benchmark
+    public List<Integer> fanInAllOf() {
+        List<CompletableFuture<Integer>> futures = pending();
+        CompletableFuture<List<Integer>> all = FanIn.allOf(futures);
+        completeAll(futures);
+        return all.join();
+    }
+
+    @Benchmark
+    public Integer completableFutureAnyOf() {
+        List<CompletableFuture<Integer>> futures = pending();
+        CompletableFuture<Integer> any = CompletableFuture.anyOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(Integer.class::cast);
+        completeAll(futures);
+        return any.join();
+    }
+
+    @Benchmark
+    public Integer fanInAnyOf() {
+        List<CompletableFuture<Integer>> futures = pending();
+        CompletableFuture<Integer> any = FanIn.anyOf(futures);
+        completeAll(futures);
+        return any.join();
+    }
+
+    @Benchmark
+    public List<Integer> fanInFirstSuccesses() {
+        List<CompletableFuture<Integer>> futures = pending();
+        CompletableFuture<List<Integer>> first = FanIn.firstSuccesses(futures, batchSize / 10);
+        completeAll(futures);
+        return first.join();
+    }
+
+    private List<CompletableFuture<Integer>> pending() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        return futures;
+    }
+
+    private static void completeAll(List<CompletableFuture<Integer>> futures) {
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).complete(i);
+        }
+    }
+}
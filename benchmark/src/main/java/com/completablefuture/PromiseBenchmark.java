@@ -0,0 +1,234 @@
+package com.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 
+ * @Description Promise 与 CompletableFuture 在 CompletableFutureTest 中几个场景上的对比：
+ *                thenApplyTestExample 的同步 thenApply 链、completableFutureTest2 中多个 Client 线程阻塞在同一个 future 上、
+ *                allOfExample 中每批结果组成的依赖树。加 -prof gc 可以看到每次操作的分配量。
+ *                运行：mvn package && java -jar target/benchmarks.jar PromiseBenchmark -prof gc
+ * @date  2026年10月18日下午9:12:40
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromiseBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Chain {
+
+        // thenApply 链的长度
+        @Param({ "2", "8" })
+        int chainLength;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+
+        // 依赖树的叶子数
+        @Param({ "3", "64" })
+        int batchSize;
+    }
+
+    /**
+     * 
+     * @Description 模拟 completableFutureTest2 中的 Client：每个线程拿到新发布的 future 后阻塞在 get() 上，拿到结果再确认
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:15:03
+     */
+    @State(Scope.Thread)
+    public static class Clients {
+
+        @Param({ "2" })
+        int clientCount;
+
+        private final AtomicInteger arrived = new AtomicInteger();
+
+        private final AtomicInteger acknowledged = new AtomicInteger();
+
+        private volatile Future<?> current;
+
+        private volatile boolean running;
+
+        private Thread[] threads;
+
+        private int round;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            running = true;
+            threads = new Thread[clientCount];
+            for (int i = 0; i < clientCount; i++) {
+                threads[i] = new Thread(this::serve, "Client" + (i + 1));
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            running = false;
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+
+        /**
+         *
+         * @Description 发布 future，等所有 Client 都开始等待后再完成它，返回时所有 Client 都已经被唤醒并拿到结果
+         * @param future
+         * @param completion
+         * @version V1.0
+         * @auth    秦涛   (taoqin0203@outlook.com)
+         * @date 2026年10月18日 下午9:17:26
+         */
+        void handOff(Future<Integer> future, Runnable completion) {
+            int target = ++round * clientCount;
+            current = future;
+            while (arrived.get() < target) {
+                Thread.yield();
+            }
+            completion.run();
+            while (acknowledged.get() < target) {
+                Thread.yield();
+            }
+        }
+
+        private void serve() {
+            Future<?> seen = null;
+            while (running) {
+                Future<?> future = current;
+                if (future == seen) {
+                    Thread.yield();
+                    continue;
+                }
+                seen = future;
+                arrived.incrementAndGet();
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e);
+                }
+                acknowledged.incrementAndGet();
+            }
+        }
+    }
+
+    @Benchmark
+    public String completableFutureChain(Chain chain) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        CompletableFuture<Integer> stage = future;
+        for (int i = 0; i < chain.chainLength; i++) {
+            stage = stage.thenApply(v -> v * 10);
+        }
+        CompletableFuture<String> f = stage.thenApply(v -> v.toString());
+        future.complete(100);
+        return f.join();
+    }
+
+    @Benchmark
+    public String promiseChain(Chain chain) {
+        Promise<Integer> future = new Promise<>();
+        Promise<Integer> stage = future;
+        for (int i = 0; i < chain.chainLength; i++) {
+            stage = stage.thenApply(v -> v * 10);
+        }
+        Promise<String> f = stage.thenApply(v -> v.toString());
+        future.complete(100);
+        return f.join();
+    }
+
+    @Benchmark
+    public void completableFutureClients(Clients clients) {
+        CompletableFuture<Integer> f = new CompletableFuture<>();
+        clients.handOff(f, () -> f.complete(100));
+    }
+
+    @Benchmark
+    public void promiseClients(Clients clients) {
+        Promise<Integer> f = new Promise<>();
+        clients.handOff(f, () -> f.complete(100));
+    }
+
+    @Benchmark
+    public String completableFutureTree(Batch batch) {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        CompletableFuture<String>[] leaves = new CompletableFuture[batch.batchSize];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = new CompletableFuture<>();
+        }
+        CompletionStage<String> root = tree(leaves);
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i].complete("m" + i);
+        }
+        return root.toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public String promiseTree(Batch batch) {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Promise<String>[] leaves = new Promise[batch.batchSize];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = new Promise<>();
+        }
+        Promise<String> root = (Promise<String>) tree(leaves);
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i].complete("m" + i);
+        }
+        return root.join();
+    }
+
+    /**
+     * 
+     * @Description 与 allOfExample 相同的结构：每个叶子先 thenApply 转成大写，再两两 thenCombine 合并到根
+     * @param leaves
+     * @return CompletionStage<String>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:21:44
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static CompletionStage<String> tree(CompletionStage<String>[] leaves) {
+        CompletionStage<String>[] level = new CompletionStage[leaves.length];
+        for (int i = 0; i < leaves.length; i++) {
+            level[i] = leaves[i].thenApply(String::toUpperCase);
+        }
+        for (int size = level.length; size > 1; size = (size + 1) / 2) {
+            for (int i = 0; i < size / 2; i++) {
+                level[i] = level[2 * i].thenCombine(level[2 * i + 1], String::concat);
+            }
+            if (size % 2 == 1) {
+                level[size / 2] = level[size - 1];
+            }
+        }
+        return level[0];
+    }
+}
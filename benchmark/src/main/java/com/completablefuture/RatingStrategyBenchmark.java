@@ -0,0 +1,162 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 
+ * @Description 串行、并行流、CompletableFuture 三种评分方式的 JMH 基准测试。
+ *                Throughput 给出吞吐量，SampleTime 给出 p50/p99 等延迟分位数。
+ *                运行：mvn package && java -jar target/benchmarks.jar RatingStrategyBenchmark -p carCount=100
+ * @date  2026年10月18日上午11:30:08
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RatingStrategyBenchmark {
+
+    public enum Latency {
+        FIXED {
+            @Override
+            long next(long millis) {
+                return millis;
+            }
+        },
+        UNIFORM {
+            @Override
+            long next(long millis) {
+                return ThreadLocalRandom.current().nextLong(2 * millis + 1);
+            }
+        },
+        LONG_TAIL {
+            @Override
+            long next(long millis) {
+                // 95% 的请求为基准延迟，5% 的请求慢 10 倍
+                return ThreadLocalRandom.current().nextInt(100) < 95 ? millis : 10 * millis;
+            }
+        };
+
+        abstract long next(long millis);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Fleet {
+
+        @Param({ "10", "100", "1000" })
+        int carCount;
+
+        @Param({ "1", "10" })
+        long latencyMillis;
+
+        @Param({ "FIXED", "UNIFORM", "LONG_TAIL" })
+        Latency latency;
+
+        List<Car> cars;
+
+        CarTable table;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            WithoutCompletableFutureExample.delayMillis = () -> latency.next(latencyMillis);
+            ParallelStreamExample.delayMillis = () -> latency.next(latencyMillis);
+            CompletableFutureExample.delayMillis = () -> latency.next(latencyMillis);
+            cars = new ArrayList<>(carCount);
+            for (int i = 1; i <= carCount; i++) {
+                cars.add(new Car(i, i % 10, "Model-" + i, 2000 + i % 20));
+            }
+            table = CarTable.of(cars);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        // 默认只跑 JDK 17 上可用的执行器；JDK 21 及以上用 -p executionMode=COMMON_POOL,FIXED_POOL,VIRTUAL_THREAD 加上虚拟线程
+        @Param({ "COMMON_POOL", "FIXED_POOL" })
+        ExecutionMode executionMode;
+
+        ExecutorService executor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            executor = executionMode.newExecutor(Runtime.getRuntime().availableProcessors());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<Car> serial(Fleet fleet) {
+        return WithoutCompletableFutureExample.rate(fleet.cars, WithoutCompletableFutureExample::rating);
+    }
+
+    @Benchmark
+    public List<Car> parallelStream(Fleet fleet) {
+        return ParallelStreamExample.rate(fleet.cars, ParallelStreamExample::rating);
+    }
+
+    @Benchmark
+    public CarTable parallelStreamTable(Fleet fleet) {
+        return ParallelStreamExample.rateTable(fleet.table);
+    }
+
+    @Benchmark
+    public List<Car> completableFuture(Fleet fleet, Pool pool) {
+        return CompletableFutureExample.rate(fleet.cars, manufacturer -> CompletableFutureExample.rating(manufacturer, pool.executor)).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public List<Car> completableFutureBounded(Fleet fleet, Pool pool) {
+        return CompletableFutureExample.rate(fleet.cars, CompletableFutureExample.maxInFlight, manufacturer -> CompletableFutureExample.rating(manufacturer, pool.executor)).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public List<Car> completableFutureAffine(Fleet fleet) {
+        return CompletableFutureExample.rate(fleet.cars, CompletableFutureExample::affineRating).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public List<Car> completableFutureBatched(Fleet fleet) {
+        return CompletableFutureExample.rate(fleet.cars, CompletableFutureExample::batchedRating).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public List<Car> completableFutureHedged(Fleet fleet) {
+        return CompletableFutureExample.rate(fleet.cars, CompletableFutureExample::hedgedRating).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public List<Car> completableFutureUnboxed(Fleet fleet, Pool pool) {
+        return CompletableFutureExample.rateUnboxed(fleet.cars, pool.executor, fleet.cars.size()).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public CarTable completableFutureTable(Fleet fleet, Pool pool) {
+        return CompletableFutureExample.rateTable(fleet.table, pool.executor, fleet.table.size()).toCompletableFuture().join();
+    }
+}
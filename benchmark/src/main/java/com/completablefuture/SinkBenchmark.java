@@ -0,0 +1,86 @@
+package com.completablefuture;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 
+ * @Description 多个线程输出 Car：与 System.out 相同的自动刷新 PrintStream.println 对比 AsyncSink，都写到临时文件。
+ *                AsyncSink 的缓冲区满了之后调用方按写线程的速度前进，测到的是持续输出的吞吐而不只是入队的开销。
+ *                运行：mvn package && java -jar target/benchmarks.jar SinkBenchmark
+ * @date  2026年10月19日上午12:20:44
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SinkBenchmark {
+
+    private final Car[] cars = new Car[1024];
+
+    private Path printStreamFile;
+
+    private Path sinkFile;
+
+    private PrintStream printStream;
+
+    private AsyncSink<Car> sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        for (int i = 0; i < cars.length; i++) {
+            cars[i] = new Car(i, i % 10, "Model" + i, 2000 + i % 20);
+            cars[i].setRating(4f + i % 10 / 10f);
+        }
+        printStreamFile = Files.createTempFile("print-stream", ".txt");
+        sinkFile = Files.createTempFile("async-sink", ".txt");
+        printStream = new PrintStream(new FileOutputStream(printStreamFile.toFile()), true);
+        sink = AsyncSink.open(sinkFile, 8192, Car::appendTo);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        printStream.close();
+        sink.close();
+        Files.deleteIfExists(printStreamFile);
+        Files.deleteIfExists(sinkFile);
+    }
+
+    @Benchmark
+    public void printStream() {
+        printStream.println(car());
+    }
+
+    @Benchmark
+    public void asyncSink() {
+        sink.accept(car());
+    }
+
+    private Car car() {
+        return cars[(int) (Thread.currentThread().getId() + System.nanoTime()) & (cars.length - 1)];
+    }
+}
@@ -0,0 +1,201 @@
+package com.completablefuture;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 
+ * @Description 自适应并发的执行器：按 AIMD 调整同时执行的任务数上限。任务的执行时间没有明显高于观测到的最小执行时间时加性增加上限，
+ *                执行时间超过容忍倍数（后端开始排队）时乘性减少上限，一个窗口内最多减少一次：减少之前已经开始的任务再变慢也不会重复减少。
+ *                上限只由服务时间驱动，后端变慢时执行器自动收缩，变快时自动扩张；超过上限的任务在队列中等待，不占用线程
+ * @date  2026年10月18日下午5:50:26
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class AdaptiveExecutor implements Executor {
+
+    // 服务时间超过最小服务时间的这个倍数就认为后端在排队
+    private static final double TOLERANCE = 2.0;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    // 每完成这么多个任务重新探测一次最小服务时间，后端整体变慢后基准也跟着变化
+    private static final int PROBE_INTERVAL = 1000;
+
+    // delegate 拒绝且没有任务在执行时，隔这么久再尝试启动队列中的任务
+    private static final long RETRY_MILLIS = 10;
+
+    private final Executor delegate;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int maxQueued;
+
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private long minServiceNanos = Long.MAX_VALUE;
+
+    private long completed;
+
+    private long arrivals;
+
+    // 已经交给 delegate 的任务数，作为任务的序号
+    private long started;
+
+    // 上一次减少上限时的 started，序号不大于它的任务属于已经减少过的窗口
+    private long lastDecrease;
+
+    private final long createdNanos = System.nanoTime();
+
+    /**
+     * @param delegate     实际执行任务的执行器，应当足够大（如虚拟线程、缓存线程池），并发由本执行器控制
+     * @param initialLimit 初始并发上限
+     * @param minLimit     并发上限的下界
+     * @param maxLimit     并发上限的上界
+     * @param maxQueued    等待队列的容量，超过时拒绝任务
+     */
+    public AdaptiveExecutor(Executor delegate, int initialLimit, int minLimit, int maxLimit, int maxQueued) {
+        if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("require 0 < minLimit <= initialLimit <= maxLimit: " + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.delegate = delegate;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Runnable admitted;
+        synchronized (this) {
+            arrivals++;
+            if (inFlight >= (int) limit || !queue.isEmpty()) {
+                if (queue.size() >= maxQueued) {
+                    throw new RejectedExecutionException("AdaptiveExecutor queue is full: " + maxQueued);
+                }
+                queue.offer(task);
+                admitted = null;
+            } else {
+                admitted = admit(task);
+            }
+        }
+        if (admitted != null) {
+            try {
+                delegate.execute(admitted);
+            } catch (RejectedExecutionException e) {
+                // 调用方自己的任务直接把拒绝抛给调用方
+                synchronized (this) {
+                    inFlight--;
+                }
+                throw e;
+            }
+        }
+        drain();
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    /**
+     * 
+     * @Description 自创建以来的平均到达率（任务/秒），只用于观测，不参与上限的计算
+     * @return double
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午5:56:12
+     */
+    public synchronized double arrivalRate() {
+        long elapsed = System.nanoTime() - createdNanos;
+        return elapsed <= 0 ? 0 : arrivals * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveExecutor (limit=" + (int) limit + ", inFlight=" + inFlight + ", queued=" + queue.size() + ", completed=" + completed + ", minServiceMicros="
+                + (minServiceNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMicros(minServiceNanos));
+    }
+
+    // 在锁内调用：占用一个并发名额，包装成记录服务时间的任务
+    private Runnable admit(Runnable task) {
+        inFlight++;
+        long seq = ++started;
+        return () -> {
+            long begin = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                onComplete(System.nanoTime() - begin, seq);
+            }
+        };
+    }
+
+    // 按上限从队列中启动任务；delegate 拒绝时把任务放回队首，等下一次完成时再尝试，没有任务在执行时由时间轮稍后重试，不会丢失
+    private void drain() {
+        for (;;) {
+            Runnable task;
+            Runnable admitted;
+            synchronized (this) {
+                if (inFlight >= (int) limit || queue.isEmpty()) {
+                    return;
+                }
+                task = queue.poll();
+                admitted = admit(task);
+            }
+            try {
+                delegate.execute(admitted);
+            } catch (RejectedExecutionException e) {
+                boolean idle;
+                synchronized (this) {
+                    inFlight--;
+                    queue.offerFirst(task);
+                    idle = inFlight == 0;
+                }
+                if (idle) {
+                    HashedWheelTimer.shared().newTimeout(this::drain, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    private void onComplete(long serviceNanos, long seq) {
+        synchronized (this) {
+            if (++completed % PROBE_INTERVAL == 0) {
+                minServiceNanos = Long.MAX_VALUE;
+            }
+            minServiceNanos = Math.min(minServiceNanos, serviceNanos);
+            if (serviceNanos > minServiceNanos * TOLERANCE) {
+                // 服务时间明显变长，说明后端已经饱和，乘性减少；上一次减少之前开始的任务反映的是旧的并发，不再减少
+                if (seq > lastDecrease) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecrease = started;
+                }
+            } else if (inFlight >= (int) limit) {
+                // 只有并发已经用满时才增加，避免空闲时上限无限增长；每完成约 limit 个任务加 1
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            inFlight--;
+        }
+        drain();
+    }
+}
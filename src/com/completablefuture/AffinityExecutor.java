@@ -0,0 +1,345 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 
+ * @Description 按 key（如 manufacturerId）亲和的工作窃取执行器：任务按 key 散列到固定的工作线程，每个工作线程有自己的无锁双端队列，
+ *                同一个 key 的任务落在同一个线程上，可以共用该线程上的连接、缓存和限流状态，并按提交顺序开始执行；
+ *                不像 Executors.newFixedThreadPool 那样所有线程争用同一个阻塞队列。只有某个线程的队列积压超过 stealThreshold 时，
+ *                自己的队列为空的线程才从它的队列头部窃取任务：轻载时每个 key 始终在自己的线程上串行执行，积压时其他线程不会闲着，
+ *                代价是被窃取的任务可能和同一 key 的下一个任务并行执行
+ * @date  2026年10月18日下午10:25:18
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class AffinityExecutor extends AbstractExecutorService {
+
+    // 默认的窃取阈值，目标线程排队的任务超过这个数才窃取
+    static final int DEFAULT_STEAL_THRESHOLD = 16;
+
+    private final Worker[] workers;
+
+    private final int stealThreshold;
+
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+
+    private final LongAdder stolen = new LongAdder();
+
+    // 抛出异常的任务数
+    private final LongAdder failedTasks = new LongAdder();
+
+    private final CountDownLatch terminated;
+
+    private volatile boolean shutdown;
+
+    public AffinityExecutor(int parallelism, String namePrefix) {
+        this(parallelism, DEFAULT_STEAL_THRESHOLD, namePrefix);
+    }
+
+    /**
+     * 
+     * @Description stealThreshold 为 Integer.MAX_VALUE 时不窃取，严格按 key 亲和
+     * @param parallelism
+     * @param stealThreshold 目标线程排队的任务超过这个数才窃取
+     * @param namePrefix
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 下午3:12:40
+     */
+    public AffinityExecutor(int parallelism, int stealThreshold, String namePrefix) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (stealThreshold < 0) {
+            throw new IllegalArgumentException("stealThreshold must not be negative: " + stealThreshold);
+        }
+        this.stealThreshold = stealThreshold;
+        this.workers = new Worker[parallelism];
+        this.terminated = new CountDownLatch(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i, namePrefix + "-" + i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * 
+     * @Description 没有 key 的任务随机分配到一个工作线程
+     * @param task
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:28:40
+     */
+    @Override
+    public void execute(Runnable task) {
+        submitTo(workers[ThreadLocalRandom.current().nextInt(workers.length)], task);
+    }
+
+    /**
+     * 
+     * @Description 同一个 key 的任务总是提交到同一个工作线程的队列
+     * @param key
+     * @param task
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:30:02
+     */
+    public void execute(int key, Runnable task) {
+        submitTo(workers[indexFor(key)], task);
+    }
+
+    /**
+     * 
+     * @Description 绑定 key 的 Executor 视图，可以直接传给 supplyAsync
+     * @param key
+     * @return Executor
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:31:15
+     */
+    public Executor forKey(int key) {
+        Worker worker = workers[indexFor(key)];
+        return task -> submitTo(worker, task);
+    }
+
+    public long stolenCount() {
+        return stolen.sum();
+    }
+
+    public long failedTaskCount() {
+        return failedTasks.sum();
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> pending = new ArrayList<>();
+        for (Worker worker : workers) {
+            Runnable task;
+            while ((task = worker.poll()) != null) {
+                pending.add(task);
+            }
+            worker.interrupt();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder queued = new StringBuilder();
+        for (Worker worker : workers) {
+            queued.append(queued.length() == 0 ? "" : ", ").append(worker.queued.get());
+        }
+        return "AffinityExecutor (parallelism=" + workers.length + ", idle=" + idleWorkers.get() + ", stolen=" + stolen.sum() + ", failed=" + failedTasks.sum() + ", queued=[" + queued + "]";
+    }
+
+    private int indexFor(int key) {
+        // Fibonacci 散列：乘以黄金分割数后用乘积的高位映射到 [0, n)，高位混合得最充分，连续的 manufacturerId 均匀分散到各个线程上，
+        // 低位取模会让 0..4 这样的小 key 挤在少数几个线程上
+        long h = (key * 0x9E3779B9) & 0xFFFFFFFFL;
+        return (int) ((h * workers.length) >>> 32);
+    }
+
+    private void submitTo(Worker worker, Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("AffinityExecutor has been shut down");
+        }
+        worker.offer(task);
+        // 检查和入队之间可能刚好 shutdown，工作线程也许已经退出；还能从队列中摘除就拒绝，摘不掉说明已被取走执行
+        if (shutdown && worker.remove(task)) {
+            throw new RejectedExecutionException("AffinityExecutor has been shut down");
+        }
+        if (worker.idle) {
+            LockSupport.unpark(worker);
+        } else if (worker.stealable()) {
+            // 目标线程正忙且积压超过阈值，唤醒一个空闲线程来窃取
+            signalIdle();
+        }
+    }
+
+    private void signalIdle() {
+        if (idleWorkers.get() == 0) {
+            return;
+        }
+        for (Worker worker : workers) {
+            if (worker.idle) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        final ConcurrentLinkedDeque<Runnable> deque = new ConcurrentLinkedDeque<>();
+
+        // ConcurrentLinkedDeque.size 要遍历整个队列，排队数单独计数
+        final AtomicInteger queued = new AtomicInteger();
+
+        final int index;
+
+        volatile boolean idle;
+
+        // 正在执行任务，只有这时队列里的任务才需要别人来窃取
+        volatile boolean busy;
+
+        Worker(int index, String name) {
+            super(name);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (;;) {
+                    Runnable task = poll();
+                    if (task == null) {
+                        task = steal();
+                    }
+                    if (task != null) {
+                        runTask(task);
+                    } else if (shutdown) {
+                        // 读到 shutdown 之后再看一次队列，shutdown 之前入队的任务都会执行
+                        if (deque.isEmpty()) {
+                            return;
+                        }
+                    } else {
+                        awaitWork();
+                    }
+                }
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        void offer(Runnable task) {
+            deque.offerLast(task);
+            queued.incrementAndGet();
+        }
+
+        boolean remove(Runnable task) {
+            if (deque.removeLastOccurrence(task)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        Runnable poll() {
+            Runnable task = deque.pollFirst();
+            if (task != null) {
+                queued.decrementAndGet();
+            }
+            return task;
+        }
+
+        // 正在执行任务且积压超过阈值；目标线程空闲或积压不多时由它自己处理，保持亲和和同一 key 的串行执行
+        boolean stealable() {
+            return busy && queued.get() > stealThreshold;
+        }
+
+        private Runnable steal() {
+            for (int i = 1; i < workers.length; i++) {
+                Worker victim = workers[(index + i) % workers.length];
+                if (!victim.stealable()) {
+                    continue;
+                }
+                // 从队头窃取，队列中的任务仍然按提交顺序开始执行
+                Runnable task = victim.poll();
+                if (task != null) {
+                    stolen.increment();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private void awaitWork() {
+            idle = true;
+            idleWorkers.incrementAndGet();
+            try {
+                // 先标记空闲再检查一次，与提交方“先入队再检查空闲标记”配合，不会丢失唤醒
+                if (!shutdown && deque.isEmpty() && !hasStealableWork()) {
+                    LockSupport.park(this);
+                }
+            } finally {
+                idle = false;
+                idleWorkers.decrementAndGet();
+            }
+            Thread.interrupted();
+        }
+
+        private boolean hasStealableWork() {
+            for (Worker worker : workers) {
+                if (worker.stealable()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void runTask(Runnable task) {
+            busy = true;
+            // 开始执行时队列里积压的任务超过阈值，说明它们要等到本任务结束，唤醒空闲线程来窃取
+            if (stealable()) {
+                signalIdle();
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // 和线程池一样交给 UncaughtExceptionHandler 处理，但工作线程不退出，队列里该 key 的后续任务照常执行
+                failedTasks.increment();
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            } finally {
+                busy = false;
+            }
+        }
+    }
+}
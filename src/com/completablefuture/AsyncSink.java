@@ -0,0 +1,363 @@
+package com.completablefuture;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 
+ * @Description 异步批量输出：调用线程只把记录放进有界环形缓冲区就返回，由单独的写线程把记录格式化到复用的 StringBuilder 和 ByteBuffer，
+ *                攒够 64KB 或者缓冲区空了再通过 FileChannel 一次写出。不像 System.out::println 那样每条记录都要争用 PrintStream 的锁并刷新一次。
+ *                缓冲区满时调用线程自旋后短暂休眠等待写线程追上。可以直接替换 forEach(System.out::println)；
+ *                与 System.out 混用时先调用 flush，保证之前的记录已经写出
+ * @date  2026年10月19日上午12:05:12
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class AsyncSink<T> implements Consumer<T>, AutoCloseable {
+
+    private static final int BATCH_BYTES = 64 * 1024;
+
+    // StringBuilder 攒到这么多字符就编码进 ByteBuffer
+    private static final int ENCODE_CHARS = 8 * 1024;
+
+    // 占用位置后才发现已经 close 的生产者填入的占位，写线程直接跳过
+    private static final Object SKIPPED = new Object();
+
+    private final FileChannel channel;
+
+    private final boolean closeChannel;
+
+    private final BiConsumer<? super T, StringBuilder> formatter;
+
+    private final AtomicReferenceArray<Object> ring;
+
+    private final int mask;
+
+    // 下一个被生产者占用的位置
+    private final AtomicLong tail = new AtomicLong();
+
+    // 写线程下一个读取的位置，只由写线程修改
+    private volatile long head;
+
+    // 已经完整写入 channel 的记录数，每写出一批都会前进
+    private volatile long written;
+
+    // flush 等待的位置，写线程读到这里时不等缓冲区变空就写出
+    private final AtomicLong flushTarget = new AtomicLong();
+
+    // 正在 flush 中等待的线程
+    private final Queue<Thread> flushers = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean writerParked;
+
+    private volatile boolean closed;
+
+    private volatile Throwable failure;
+
+    private final Thread writer;
+
+    private final StringBuilder chars = new StringBuilder(ENCODE_CHARS * 2);
+
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BATCH_BYTES);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * @param channel      输出的 channel
+     * @param closeChannel close 时是否关闭 channel
+     * @param capacity     环形缓冲区能容纳的记录数，向上取整到 2 的幂
+     * @param formatter    把一条记录追加到 StringBuilder，不需要追加换行
+     */
+    public AsyncSink(FileChannel channel, boolean closeChannel, int capacity, BiConsumer<? super T, StringBuilder> formatter) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in (0, 2^30]: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.formatter = formatter;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writer = new Thread(this::drain, "async-sink-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 
+     * @Description 写到标准输出，close 时不关闭标准输出
+     * @param capacity
+     * @param formatter
+     * @return AsyncSink<T>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午12:08:40
+     */
+    public static <T> AsyncSink<T> stdout(int capacity, BiConsumer<? super T, StringBuilder> formatter) {
+        return new AsyncSink<>(new FileOutputStream(FileDescriptor.out).getChannel(), false, capacity, formatter);
+    }
+
+    /**
+     * 
+     * @Description 写到文件，文件已存在时清空
+     * @param file
+     * @param capacity
+     * @param formatter
+     * @return AsyncSink<T>
+     * @throws IOException
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午12:09:55
+     */
+    public static <T> AsyncSink<T> open(Path file, int capacity, BiConsumer<? super T, StringBuilder> formatter) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new AsyncSink<>(channel, true, capacity, formatter);
+    }
+
+    /**
+     * 
+     * @Description 放入一条记录；缓冲区满时等待写线程腾出位置
+     * @param item
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午12:11:26
+     */
+    @Override
+    public void accept(T item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        long seq;
+        for (int spins = 0;; spins++) {
+            checkOpen();
+            seq = tail.get();
+            if (seq - head > mask) {
+                backoff(spins);
+                continue;
+            }
+            if (tail.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        // 占用位置之后再检查一次：没看到 closed 的记录，写线程退出前一定会写出；看到了就填入占位并拒绝，
+        // 否则写线程可能已经退出，记录被悄悄丢掉
+        if (closed) {
+            ring.set((int) seq & mask, SKIPPED);
+            LockSupport.unpark(writer);
+            throw new IllegalStateException("AsyncSink has been closed");
+        }
+        ring.set((int) seq & mask, item);
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 
+     * @Description 等待调用之前放入的记录全部写入 channel
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午12:13:02
+     */
+    public void flush() {
+        long target = tail.get();
+        if (written >= target) {
+            return;
+        }
+        flushTarget.accumulateAndGet(target, Math::max);
+        Thread current = Thread.currentThread();
+        flushers.add(current);
+        try {
+            LockSupport.unpark(writer);
+            while (written < target) {
+                if (failure != null) {
+                    throw new IllegalStateException("AsyncSink writer failed", failure);
+                }
+                // 写线程每写出一批都会唤醒等待的线程，超时只是兜底
+                LockSupport.parkNanos(this, 1_000_000);
+            }
+        } finally {
+            flushers.remove(current);
+        }
+    }
+
+    /**
+     * 
+     * @Description 写出剩余的记录并停止写线程，之后再放入记录会抛出 IllegalStateException
+     * @throws IOException 关闭 channel 失败
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午12:14:20
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+
+    public long writtenCount() {
+        return written;
+    }
+
+    @Override
+    public String toString() {
+        long h = head;
+        return "AsyncSink (capacity=" + ring.length() + ", queued=" + (tail.get() - h) + ", written=" + written + ")";
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("AsyncSink writer failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("AsyncSink has been closed");
+        }
+    }
+
+    private static void backoff(int spins) {
+        if (spins < 64) {
+            Thread.onSpinWait();
+        } else if (spins < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        try {
+            long h = head;
+            int spins = 0;
+            for (;;) {
+                int index = (int) h & mask;
+                Object item = ring.get(index);
+                if (item == null) {
+                    if (tail.get() != h) {
+                        // 生产者已经占用位置但还没有写入
+                        backoff(spins++);
+                        continue;
+                    }
+                    // 缓冲区空了，把攒下的记录写出去
+                    writeBatch(h);
+                    if (closed) {
+                        // 读到 closed 之后再看一次 tail，在这之前占用了位置的生产者没有看到 closed，它们的记录也要写出
+                        if (tail.get() == h) {
+                            return;
+                        }
+                        continue;
+                    }
+                    writerParked = true;
+                    // 先标记再检查一次，与生产者“先写入再检查标记”配合，不会丢失唤醒
+                    if (ring.get(index) == null && !closed) {
+                        LockSupport.park(this);
+                    }
+                    writerParked = false;
+                    continue;
+                }
+                spins = 0;
+                ring.set(index, null);
+                head = ++h;
+                if (item != SKIPPED) {
+                    formatter.accept((T) item, chars);
+                    chars.append('\n');
+                }
+                if (written < flushTarget.get() && h >= flushTarget.get()) {
+                    writeBatch(h);
+                } else if (chars.length() >= ENCODE_CHARS) {
+                    encode();
+                    // 剩余空间不够再编码一批时写出，每次写出的都是完整的记录
+                    if (bytes.remaining() < ENCODE_CHARS * 3) {
+                        write();
+                        advanceWritten(h);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            // formatter 抛出的 Error 也要记下来，否则写线程退出后 flush 和 close 会一直等下去
+            failure = e;
+            wakeFlushers();
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private void writeBatch(long h) throws IOException {
+        encode();
+        write();
+        advanceWritten(h);
+    }
+
+    private void advanceWritten(long h) {
+        written = h;
+        wakeFlushers();
+    }
+
+    private void wakeFlushers() {
+        for (Thread flusher : flushers) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void encode() throws IOException {
+        CharBuffer in = CharBuffer.wrap(chars);
+        encoder.reset();
+        for (;;) {
+            CoderResult result = encoder.encode(in, bytes, true);
+            if (result.isOverflow()) {
+                write();
+            } else {
+                break;
+            }
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            write();
+        }
+        chars.setLength(0);
+    }
+
+    private void write() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
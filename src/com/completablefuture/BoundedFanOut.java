@@ -0,0 +1,148 @@
+package com.completablefuture;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 
+ * @Description 有并发上限的扇出：同一时刻最多有 maxInFlight 个异步任务在执行，只有任务完成腾出名额后才从数据源拉取下一个元素，
+ *                结果在每个任务完成时立即回调，内存占用和对后端的并发压力不随输入规模增长
+ * @date  2026年10月18日下午1:20:44
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public final class BoundedFanOut<T, R> {
+
+    private final Iterator<? extends T> source;
+
+    private final int maxInFlight;
+
+    private final Function<? super T, ? extends CompletionStage<R>> task;
+
+    private final BiConsumer<? super T, ? super R> onResult;
+
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // 保证同一时刻只有一个线程在拉取数据源，任务同步完成时也不会递归调用导致栈溢出
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    private boolean exhausted;
+
+    private BoundedFanOut(Iterator<? extends T> source, int maxInFlight, Function<? super T, ? extends CompletionStage<R>> task, BiConsumer<? super T, ? super R> onResult) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.source = source;
+        this.maxInFlight = maxInFlight;
+        this.task = task;
+        this.onResult = onResult;
+    }
+
+    /**
+     * 
+     * @Description 按完成顺序回调每个结果，onResult 可能在不同线程上并发调用；任一任务失败后不再拉取新元素，返回的阶段异常完成
+     * @param source
+     * @param maxInFlight
+     * @param task
+     * @param onResult
+     * @return CompletionStage<Void>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午1:24:02
+     */
+    public static <T, R> CompletionStage<Void> forEach(Iterator<? extends T> source, int maxInFlight, Function<? super T, ? extends CompletionStage<R>> task, BiConsumer<? super T, ? super R> onResult) {
+        BoundedFanOut<T, R> fanOut = new BoundedFanOut<>(source, maxInFlight, task, onResult);
+        fanOut.drain();
+        return fanOut.done;
+    }
+
+    /**
+     * 
+     * @Description 结果按输入顺序写入预分配的数组，全部完成后返回
+     * @param source
+     * @param maxInFlight
+     * @param task
+     * @return CompletionStage<List<R>>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午1:26:37
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> CompletionStage<List<R>> map(List<? extends T> source, int maxInFlight, Function<? super T, ? extends CompletionStage<R>> task) {
+        Object[] results = new Object[source.size()];
+        AtomicInteger index = new AtomicInteger();
+        Iterator<Integer> positions = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return index.get() < results.length;
+            }
+
+            @Override
+            public Integer next() {
+                return index.getAndIncrement();
+            }
+        };
+        return forEach(positions, maxInFlight, (Integer i) -> task.apply(source.get(i)), (i, r) -> results[i] = r).thenApply(v -> (List<R>) Arrays.asList(results));
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (!failed.get() && !exhausted && inFlight.get() < maxInFlight) {
+                if (!source.hasNext()) {
+                    exhausted = true;
+                    break;
+                }
+                T item = source.next();
+                inFlight.incrementAndGet();
+                start(item);
+            }
+            if (exhausted && inFlight.get() == 0) {
+                done.complete(null);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private void start(T item) {
+        CompletionStage<R> stage;
+        try {
+            stage = task.apply(item);
+        } catch (RuntimeException e) {
+            stage = failedStage(e);
+        }
+        stage.whenComplete((r, th) -> {
+            if (th == null) {
+                try {
+                    onResult.accept(item, r);
+                } catch (RuntimeException e) {
+                    th = e;
+                }
+            }
+            if (th != null && failed.compareAndSet(false, true)) {
+                done.completeExceptionally(th);
+            }
+            inFlight.decrementAndGet();
+            drain();
+        });
+    }
+
+    private static <R> CompletionStage<R> failedStage(Throwable th) {
+        CompletableFuture<R> failed = new CompletableFuture<>();
+        failed.completeExceptionally(th);
+        return failed;
+    }
+}
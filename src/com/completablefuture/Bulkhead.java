@@ -0,0 +1,67 @@
+package com.completablefuture;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * @Description 按键隔离的舱壁：每个 manufacturerId 同时进行的调用数不超过 maxConcurrentPerKey，超出时不等待，
+ *                立即以 RejectedExecutionException 失败，一个变慢的制造商不会占满所有工作线程
+ * @date  2026年10月18日下午6:41:52
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class Bulkhead<K> {
+
+    private final int maxConcurrentPerKey;
+
+    private final Map<K, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public Bulkhead(int maxConcurrentPerKey) {
+        if (maxConcurrentPerKey <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPerKey must be positive: " + maxConcurrentPerKey);
+        }
+        this.maxConcurrentPerKey = maxConcurrentPerKey;
+    }
+
+    /**
+     * 
+     * @Description 取得 key 的许可后发起调用，阶段完成时归还许可
+     * @param key
+     * @param supplier
+     * @return CompletionStage<T>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午6:43:30
+     */
+    public <T> CompletionStage<T> call(K key, Supplier<? extends CompletionStage<T>> supplier) {
+        Semaphore semaphore = permits.computeIfAbsent(key, k -> new Semaphore(maxConcurrentPerKey));
+        if (!semaphore.tryAcquire()) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RejectedExecutionException("bulkhead is full for " + key));
+            return rejected;
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = supplier.get();
+        } catch (RuntimeException e) {
+            // 与 CircuitBreaker 一样，supplier 同步抛出的异常也以失败的阶段返回
+            semaphore.release();
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return stage.whenComplete((v, th) -> semaphore.release());
+    }
+
+    public int available(K key) {
+        Semaphore semaphore = permits.get(key);
+        return semaphore == null ? maxConcurrentPerKey : semaphore.availablePermits();
+    }
+}
@@ -22,8 +22,15 @@ public class Car {
         this.rating = rating;
     }
 
+    // 追加到调用方复用的 StringBuilder，AsyncSink 格式化时不用为每辆车创建字符串
+    void appendTo(StringBuilder sb) {
+        sb.append("Car (id=").append(id).append(", manufacturerId=").append(manufacturerId).append(", model=").append(model).append(", year=").append(year).append(", rating=").append(rating);
+    }
+
     @Override
     public String toString() {
-        return "Car (id=" + id + ", manufacturerId=" + manufacturerId + ", model=" + model + ", year=" + year + ", rating=" + rating;
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb);
+        return sb.toString();
     }
 }
@@ -0,0 +1,170 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 
+ * @Description 列式存储的车辆表：每个字段一个基本类型数组（structure-of-arrays），车型名称存放在去重字典中只保存编号，
+ *                没有每辆车的对象头和引用，评分流水线按行号原地读写，顺序扫描对 CPU 缓存友好。
+ *                追加行不是线程安全的；不同线程写不同行的评分是安全的
+ * @date  2026年10月18日下午4:20:11
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class CarTable {
+
+    private int size;
+
+    private int[] ids;
+
+    private int[] manufacturerIds;
+
+    private int[] modelCodes;
+
+    private short[] years;
+
+    private float[] ratings;
+
+    private final Map<String, Integer> modelCodeByName = new HashMap<>();
+
+    private final List<String> models = new ArrayList<>();
+
+    public CarTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        ids = new int[capacity];
+        manufacturerIds = new int[capacity];
+        modelCodes = new int[capacity];
+        years = new short[capacity];
+        ratings = new float[capacity];
+    }
+
+    public static CarTable of(List<Car> cars) {
+        CarTable table = new CarTable(cars.size());
+        for (Car car : cars) {
+            int row = table.add(car.id, car.manufacturerId, car.model, car.year);
+            table.setRating(row, car.rating);
+        }
+        return table;
+    }
+
+    /**
+     * 
+     * @Description 追加一行，返回行号。年份按 short 存储，超出 short 范围时抛出 IllegalArgumentException，不会静默截断
+     * @param id
+     * @param manufacturerId
+     * @param model
+     * @param year
+     * @return int     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午4:22:37
+     */
+    public int add(int id, int manufacturerId, String model, int year) {
+        if (year < Short.MIN_VALUE || year > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("year out of range: " + year);
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = id;
+        manufacturerIds[row] = manufacturerId;
+        modelCodes[row] = modelCodeByName.computeIfAbsent(model, m -> {
+            models.add(m);
+            return models.size() - 1;
+        });
+        years[row] = (short) year;
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int row) {
+        return ids[checkRow(row)];
+    }
+
+    public int manufacturerId(int row) {
+        return manufacturerIds[checkRow(row)];
+    }
+
+    public String model(int row) {
+        return models.get(modelCodes[checkRow(row)]);
+    }
+
+    public int year(int row) {
+        return years[checkRow(row)];
+    }
+
+    public float rating(int row) {
+        return ratings[checkRow(row)];
+    }
+
+    public void setRating(int row, float rating) {
+        ratings[checkRow(row)] = rating;
+    }
+
+    public int modelCount() {
+        return models.size();
+    }
+
+    /**
+     * 
+     * @Description 制造商列的底层数组，只有前 size() 个元素有效，供批量评分直接读取，调用方不能修改
+     * @return int[]     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午4:25:03
+     */
+    int[] manufacturerIdColumn() {
+        return manufacturerIds;
+    }
+
+    /**
+     * 
+     * @Description 评分列的底层数组，只有前 size() 个元素有效，批量评分直接原地写入
+     * @return float[]     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午4:25:40
+     */
+    float[] ratingColumn() {
+        return ratings;
+    }
+
+    public Car toCar(int row) {
+        Car car = new Car(id(row), manufacturerId(row), model(row), year(row));
+        car.setRating(rating(row));
+        return car;
+    }
+
+    public List<Car> toCars() {
+        List<Car> cars = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            cars.add(toCar(row));
+        }
+        return cars;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+        return row;
+    }
+
+    private void grow() {
+        int capacity = ids.length << 1;
+        ids = Arrays.copyOf(ids, capacity);
+        manufacturerIds = Arrays.copyOf(manufacturerIds, capacity);
+        modelCodes = Arrays.copyOf(modelCodes, capacity);
+        years = Arrays.copyOf(years, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+    }
+}
@@ -0,0 +1,179 @@
+package com.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * @Description 无锁断路器：在最近 windowSize 次调用的滑动窗口内失败率达到阈值时打开，打开期间的调用立即以
+ *                RejectedExecutionException 失败（调用方的 exceptionally 直接返回兜底值，不再等待后端超时），
+ *                经过 openMillis 后进入半开状态放行一次试探调用，成功则关闭，失败则重新打开
+ * @date  2026年10月18日下午6:30:14
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int EMPTY = -1;
+
+    private static final int SUCCESS = 0;
+
+    private static final int FAILURE = 1;
+
+    private final int windowSize;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicLong openedAt = new AtomicLong();
+
+    // 半开试探成功时整体换成新的窗口，还在记录结果的旧调用只会写进被丢弃的旧窗口，不会把新窗口的计数减成负数
+    private final AtomicReference<Window> window;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("require 0 < minimumCalls <= windowSize: " + minimumCalls + ", " + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.window = new AtomicReference<>(new Window(windowSize));
+    }
+
+    /**
+     * 
+     * @Description 通过断路器发起调用，断路器打开时不调用 supplier，直接返回失败的阶段
+     * @param supplier
+     * @return CompletionStage<T>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午6:33:48
+     */
+    public <T> CompletionStage<T> call(Supplier<? extends CompletionStage<T>> supplier) {
+        boolean trial = false;
+        State current = state.get();
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt.get() < openNanos || !state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                return rejected();
+            }
+            trial = true;
+        } else if (current == State.HALF_OPEN) {
+            // 半开状态只放行一次试探调用
+            return rejected();
+        }
+        boolean isTrial = trial;
+        CompletionStage<T> stage;
+        try {
+            stage = supplier.get();
+        } catch (RuntimeException e) {
+            onResult(false, isTrial);
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return stage.whenComplete((v, th) -> onResult(th == null, isTrial));
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    public double failureRate() {
+        return window.get().failureRate();
+    }
+
+    private void onResult(boolean success, boolean trial) {
+        if (trial) {
+            if (success) {
+                window.set(new Window(windowSize));
+                state.set(State.CLOSED);
+            } else {
+                open(State.HALF_OPEN);
+            }
+            return;
+        }
+        Window current = window.get();
+        current.record(success);
+        if (state.get() == State.CLOSED && current.recorded.get() >= minimumCalls && current.failureRate() >= failureRateThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State expected) {
+        if (state.compareAndSet(expected, State.OPEN)) {
+            openedAt.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * 
+     * @Description 滑动窗口：环形数组保存最近 windowSize 次调用的结果
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 下午6:10:24
+     */
+    private static final class Window {
+
+        final AtomicIntegerArray outcomes;
+
+        final AtomicInteger cursor = new AtomicInteger();
+
+        final AtomicInteger recorded = new AtomicInteger();
+
+        final AtomicInteger failures = new AtomicInteger();
+
+        Window(int size) {
+            outcomes = new AtomicIntegerArray(size);
+            for (int i = 0; i < size; i++) {
+                outcomes.set(i, EMPTY);
+            }
+        }
+
+        void record(boolean success) {
+            int slot = Math.floorMod(cursor.getAndIncrement(), outcomes.length());
+            int previous = outcomes.getAndSet(slot, success ? SUCCESS : FAILURE);
+            if (previous == EMPTY) {
+                recorded.incrementAndGet();
+            } else if (previous == FAILURE) {
+                failures.decrementAndGet();
+            }
+            if (!success) {
+                failures.incrementAndGet();
+            }
+        }
+
+        double failureRate() {
+            int n = recorded.get();
+            return n == 0 ? 0 : (double) failures.get() / n;
+        }
+    }
+
+    private static <T> CompletionStage<T> rejected() {
+        CompletableFuture<T> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new RejectedExecutionException("circuit breaker is open"));
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker (state=" + state.get() + ", failureRate=" + failureRate() + ", recorded=" + window.get().recorded.get();
+    }
+}
@@ -1,11 +1,26 @@
 package com.completablefuture;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 
@@ -17,64 +32,284 @@ import java.util.stream.Collectors;
  */
 public class CompletableFutureExample {
 
+    static LongSupplier delayMillis = () -> 5000;
+
+    static int maxInFlight = 64;
+
+    static long deadlineMillis = 10000;
+
+    static StageMetrics metrics = new StageMetrics();
+
+    static Executor defaultExecutor = new CompletableFuture<Void>().defaultExecutor();
+
+    // 只有评分查询本身提交到 ratingExecutor，"rating" 的统计就是查询的排队和执行时间；许可交接、重试调度等用不计量的 defaultExecutor
+    static Executor ratingExecutor = metrics.executor("rating", defaultExecutor);
+
+    static RatingCache cache = new RatingCache(CompletableFutureExample::limitedRating, 1000, 10, TimeUnit.MINUTES);
+
+    static RatingBatcher batcher = new RatingBatcher(CompletableFutureExample::ratings, 100, 10);
+
+    static HedgingPolicy hedging = new HedgingPolicy(0.95, 1000, 10);
+
+    static CircuitBreaker breaker = new CircuitBreaker(100, 10, 0.5, 30000);
+
+    static Bulkhead<Integer> bulkhead = new Bulkhead<>(16);
+
+    // 评分后端的全局配额，以及每个 manufacturerId 各自的配额
+    static RateLimiter rateLimiter = new RateLimiter(50, 5, defaultExecutor);
+
+    static Map<Integer, RateLimiter> manufacturerLimiters = new ConcurrentHashMap<>();
+
+    static RetryPolicy retry = new RetryPolicy(3, 100, 2000, 0.1, 10, defaultExecutor);
+
     public static void main(String[] args) {
         long start = System.currentTimeMillis();
 
-        List<Car> join = cars().thenCompose(cars -> {
-            List<CompletionStage<Car>> updatedCars = cars.stream().map(car -> rating(car.manufacturerId).thenApply(r -> {
-                car.setRating(r);
-                return car;
-            })).collect(Collectors.toList());
-
-            CompletableFuture<Void> done = CompletableFuture.allOf(updatedCars.toArray(new CompletableFuture[updatedCars.size()]));
-            return done.thenApply(v -> updatedCars.stream().map(CompletionStage::toCompletableFuture).map(CompletableFuture::join).collect(Collectors.toList()));
-        }).whenComplete((cars, th) -> {
+        metrics.registerMBean();
+        RatingSnapshot snapshot = RatingSnapshot.openDefault("completable-future", defaultExecutor);
+        IncrementalRating incremental = IncrementalRating.openDefault("completable-future");
+        // 后台刷新查到新的评分时，这个 manufacturerId 下的车下一次重新评分
+        snapshot.onChange(incremental::manufacturerChanged);
+        AsyncSink<Car> out = AsyncSink.stdout(8192, Car::appendTo);
+        Deadline deadline = Deadline.after(deadlineMillis, TimeUnit.MILLISECONDS);
+        CompletionStage<List<Car>> fleet = metrics.track("cars", cars());
+        // 刷新车队涉及的所有 manufacturerId，包括这次不需要评分的干净车辆，否则干净的车永远发现不了评分变化
+        CompletionStage<Void> refreshed = fleet.thenCompose(cars -> snapshot.refresh(manufacturerIds(cars), CompletableFutureExample::cachedRating));
+        // 单辆车的评分：快照优先，未命中时经缓存查询，过了截止时间不再发起查询
+        Function<Integer, CompletionStage<Float>> rater = manufacturer -> deadline.bound(() -> snapshot.rating(manufacturer, CompletableFutureExample::cachedRating), -1f);
+        // 只有输入变化的车进入流水线评分
+        CompletionStage<List<Car>> rated = fleet.thenCompose(cars -> metrics.track("rate", incremental.rate(cars, dirty -> ratePipelined(dirty, maxInFlight, rater))));
+        List<Car> join = rated.whenComplete(metrics.biConsumer("print", (cars, th) -> {
             if (th == null) {
-                cars.forEach(System.out::println);
+                cars.forEach(out);
             } else {
                 throw new RuntimeException(th);
             }
-        }).toCompletableFuture().join();
+        })).toCompletableFuture().join();
+        out.flush();
 
         long end = System.currentTimeMillis();
 
         System.out.println("Took " + (end - start) + " ms.");
+        metrics.getSnapshots().forEach(System.out::println);
+        // 保存之前等刷新写入快照，刷新发现的变化才会随状态一起保存，下一次运行重新评分这些车
+        refreshed.toCompletableFuture().join();
+        snapshot.force();
+        System.out.println(snapshot);
+        incremental.save();
+        System.out.println(incremental);
+    }
+
+    private static Set<Integer> manufacturerIds(List<Car> cars) {
+        return cars.stream().map(car -> car.manufacturerId).collect(Collectors.toSet());
+    }
+
+    // 用 FanIn.allOf 收集，快速失败：任一辆车的评分失败时立即失败，不像 CompletableFuture.allOf 那样等所有查询结束；
+    // 示例中的 rater 都用 exceptionally 兜底，正常情况下不会失败
+    static CompletionStage<List<Car>> rate(List<Car> cars, Function<Integer, CompletionStage<Float>> rater) {
+        List<CompletionStage<Car>> updatedCars = cars.stream().map(car -> rater.apply(car.manufacturerId).thenApply(r -> {
+            car.setRating(r);
+            return car;
+        })).collect(Collectors.toList());
+
+        return FanIn.allOf(updatedCars);
+    }
+
+    static CompletionStage<List<Car>> rate(List<Car> cars, int maxInFlight, Function<Integer, CompletionStage<Float>> rater) {
+        return BoundedFanOut.map(cars, maxInFlight, car -> rater.apply(car.manufacturerId).thenApply(r -> {
+            car.setRating(r);
+            return car;
+        }));
+    }
+
+    // load -> rating -> setRating -> 收集，发起查询在单独计量的 dispatch 阶段上、转换在公共池上、收集在单独的阶段上，阶段之间的队列容量都是 maxInFlight，
+    // rating 阶段的并行度就是同时在途的查询数上限。流水线中传递的是车辆在输入中的下标，评分按完成顺序到达，
+    // 收集阶段按下标写回，返回的列表和其他 rate 方法一样按输入顺序排列
+    static CompletionStage<List<Car>> ratePipelined(List<Car> cars, int maxInFlight, Function<Integer, CompletionStage<Float>> rater) {
+        Car[] rated = new Car[cars.size()];
+        return Pipeline.source("load", IntStream.range(0, cars.size()).iterator(), metrics.executor("load", defaultExecutor))
+                .thenCompose("rating", (Integer i) -> rater.apply(cars.get(i).manufacturerId).thenApply(r -> new AbstractMap.SimpleImmutableEntry<>(i, r)), metrics.executor("dispatch", defaultExecutor), maxInFlight, maxInFlight)
+                .thenApply("transform", entry -> {
+                    cars.get(entry.getKey()).setRating(entry.getValue());
+                    return entry.getKey();
+                }, metrics.executor("transform", ForkJoinPool.commonPool()), Runtime.getRuntime().availableProcessors(), maxInFlight)
+                .forEach("sink", (Integer i) -> rated[i] = cars.get(i), metrics.executor("sink", defaultExecutor), maxInFlight).thenApply(v -> List.of(rated));
+    }
+
+    static CompletionStage<List<Car>> rateScoped(List<Car> cars, Executor executor, long timeout, TimeUnit unit) {
+        TaskScope scope = new TaskScope(executor, TaskScope.Policy.FAIL_FAST, timeout, unit);
+        List<CompletableFuture<Car>> updatedCars = cars.stream().map(car -> scope.fork(() -> {
+            car.setRating(loadRating(car.manufacturerId));
+            return car;
+        })).collect(Collectors.toList());
+
+        CompletableFuture<List<Car>> rated = scope.join().thenApply(v -> updatedCars.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+        // 完成、失败或调用方取消返回的阶段后都关闭作用域，未完成的子任务被中断
+        rated.whenComplete((r, th) -> scope.close());
+        return rated;
+    }
+
+    static Flow.Publisher<Car> rateInCompletionOrder(List<Car> cars, Function<Integer, CompletionStage<Float>> rater) {
+        return new CompletionOrderPublisher<>(cars.stream().map(car -> rater.apply(car.manufacturerId).thenApply(r -> {
+            car.setRating(r);
+            return car;
+        })).collect(Collectors.toList()));
+    }
+
+    static CompletionStage<List<Car>> rateUnboxed(List<Car> cars, Executor executor, int parallelism) {
+        int[] manufacturerIds = new int[cars.size()];
+        for (int i = 0; i < manufacturerIds.length; i++) {
+            manufacturerIds[i] = cars.get(i).manufacturerId;
+        }
+        return FloatRatingSink.rateAll(manufacturerIds, CompletableFutureExample::loadRating, -1f, executor, parallelism).thenApply(ratings -> {
+            for (int i = 0; i < ratings.length; i++) {
+                cars.get(i).setRating(ratings[i]);
+            }
+            return cars;
+        });
+    }
+
+    static CompletionStage<CarTable> rateTable(CarTable table, Executor executor, int parallelism) {
+        return FloatRatingSink.rateInto(table.manufacturerIdColumn(), table.size(), table.ratingColumn(), CompletableFutureExample::loadRating, -1f, executor, parallelism).thenApply(ratings -> table);
     }
 
     static CompletionStage<Float> rating(int manufacturer) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                simulateDelay();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(e);
+        return CompletableFuture.supplyAsync(() -> loadRating(manufacturer)).exceptionally(th -> -1f);
+    }
+
+    static CompletionStage<Float> rating(int manufacturer, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> loadRating(manufacturer), executor).exceptionally(th -> -1f);
+    }
+
+    // 工作线程在第一次 affineRating 时才启动，只跑其他评分方式时不创建
+    private static final class AffinityHolder {
+        static final AffinityExecutor EXECUTOR = new AffinityExecutor(Runtime.getRuntime().availableProcessors(), "rating-affinity");
+    }
+
+    // 同一个 manufacturerId 的请求提交到同一个工作线程；只有这个线程积压超过窃取阈值时，其他线程才会分担它的请求
+    static CompletionStage<Float> affineRating(int manufacturer) {
+        return CompletableFuture.supplyAsync(() -> loadRating(manufacturer), AffinityHolder.EXECUTOR.forKey(manufacturer)).exceptionally(th -> -1f);
+    }
+
+    // 先等 manufacturerId 的许可再取全局许可，全局许可不会在等待单个 manufacturerId 时被白白占用
+    static CompletionStage<Float> limitedRating(int manufacturer) {
+        RateLimiter manufacturerLimiter = manufacturerLimiters.computeIfAbsent(manufacturer, m -> new RateLimiter(10, 2, defaultExecutor));
+        return manufacturerLimiter.acquire().thenCompose(permit -> rateLimiter.acquire()).thenCompose(permit -> CompletableFuture.supplyAsync(() -> loadRating(manufacturer), ratingExecutor));
+    }
+
+    // 缓存的加载器不做兜底，失败的加载不会被缓存，兜底值在取出之后再加
+    static CompletionStage<Float> cachedRating(int manufacturer) {
+        return cache.get(manufacturer).exceptionally(th -> -1f);
+    }
+
+    static CompletionStage<Float> batchedRating(int manufacturer) {
+        return batcher.rating(manufacturer).exceptionally(th -> -1f);
+    }
+
+    // 对冲原始的查询，两次都失败才用兜底值；输掉的查询被中断
+    static CompletionStage<Float> hedgedRating(int manufacturer) {
+        return hedging.call(() -> interruptibleRating(manufacturer, ratingExecutor)).exceptionally(th -> -1f);
+    }
+
+    // CompletableFuture.cancel 不会中断执行中的 supplyAsync，这里用 FutureTask 执行查询，取消返回的 future 时中断查询线程
+    static CompletableFuture<Float> interruptibleRating(int manufacturer, Executor executor) {
+        CompletableFuture<Float> result = new CompletableFuture<>();
+        FutureTask<Float> task = new FutureTask<Float>(() -> loadRating(manufacturer)) {
+            @Override
+            public void run() {
+                super.run();
+                // 中断只针对本次查询，清除后线程回到执行器中不会影响下一个任务
+                if (isCancelled()) {
+                    Thread.interrupted();
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    result.complete(get());
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (CancellationException | InterruptedException e) {
+                    result.cancel(false);
+                }
             }
-            // int i = 1 / 0;
-            switch (manufacturer) {
-            case 2:
-                return 4f;
-            case 3:
-                return 4.1f;
-            case 7:
-                return 4.2f;
-            default:
-                return 5f;
+        };
+        result.whenComplete((v, th) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
             }
-        }).exceptionally(th -> -1f);
+        });
+        executor.execute(task);
+        return result;
+    }
+
+    static CompletionStage<Float> guardedRating(int manufacturer) {
+        return bulkhead.call(manufacturer, () -> breaker.call(() -> CompletableFuture.supplyAsync(() -> loadRating(manufacturer), ratingExecutor))).exceptionally(th -> -1f);
+    }
+
+    static CompletionStage<Float> retryingRating(int manufacturer) {
+        return retry.call(() -> CompletableFuture.supplyAsync(() -> loadRating(manufacturer), ratingExecutor)).exceptionally(th -> -1f);
+    }
+
+    static Map<Integer, Float> ratings(Set<Integer> manufacturers) {
+        try {
+            simulateDelay();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        Map<Integer, Float> ratings = new HashMap<>();
+        manufacturers.forEach(manufacturer -> ratings.put(manufacturer, ratingOf(manufacturer)));
+        return ratings;
+    }
+
+    static float loadRating(int manufacturer) {
+        try {
+            simulateDelay();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        // int i = 1 / 0;
+        return ratingOf(manufacturer);
+    }
+
+    private static float ratingOf(int manufacturer) {
+        switch (manufacturer) {
+        case 2:
+            return 4f;
+        case 3:
+            return 4.1f;
+        case 7:
+            return 4.2f;
+        default:
+            return 5f;
+        }
     }
 
     static CompletionStage<List<Car>> cars() {
+        List<Car> carList = carList();
+        return CompletableFuture.supplyAsync(() -> carList);
+    }
+
+    static CompletionStage<List<Car>> cars(Executor executor) {
+        List<Car> carList = carList();
+        return CompletableFuture.supplyAsync(() -> carList, executor);
+    }
+
+    private static List<Car> carList() {
         List<Car> carList = new ArrayList<>();
         carList.add(new Car(1, 3, "Fiesta", 2017));
         carList.add(new Car(2, 7, "Camry", 2014));
         carList.add(new Car(3, 2, "M2", 2008));
-        return CompletableFuture.supplyAsync(() -> carList);
+        return carList;
     }
 
     private static void simulateDelay() throws InterruptedException {
         Random r = new Random();
         // int nextInt = r.nextInt(5000);
         // System.err.println("time:" + nextInt);
-        Thread.sleep(5000);
+        Thread.sleep(delayMillis.getAsLong());
     }
 }
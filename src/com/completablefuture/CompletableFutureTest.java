@@ -1,6 +1,7 @@
 package com.completablefuture;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
@@ -9,8 +10,12 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -33,11 +38,15 @@ public class CompletableFutureTest {
         主动完成计算     futureTest();   completableFutureTest(); completableFutureTest2();
         创建CompletableFuture对象。 completedFutureExample(); runAsyncExample();completableFutureTest();
         计算结果完成时的处理   whenCompleteExample(); completeExceptionallyExample(); 
-        转换  thenApplyExample(); thenApplyAsyncWithExecutorExample(); thenApplyTestExample();
+        取消  cancelExample(); taskScopeCancelExample(); rateScopedExample();
+        转换  thenApplyExample(); thenApplyAsyncWithExecutorExample(); thenApplyAsyncWithVirtualThreadExample(); adaptiveExecutorExample(); affinityExecutorExample(); thenApplyTestExample();
         纯消费(执行Action)  thenAcceptExample();
         组合  thenComposeExample(); thenComposeExample2();  thenCombineExample();  thenCombineAsyncExample();  thenCombine功能更类似thenAcceptBoth
+        限流  rateLimiterExample();
+        容错  circuitBreakerExample(); retryExample();
+        流水线  pipelineExample();
         Either 任意一个CompletableFuture计算完成的时候就会执行  acceptEitherExample(); applyToEitherExample2();
-        辅助方法 allOf 和 anyOf  anyOfExample();
+        辅助方法 allOf 和 anyOf  anyOfExample(); fanInExample(); completionOrderExample();
      */
     public static void main(String[] args) throws Exception {
 
@@ -273,6 +282,16 @@ public class CompletableFutureTest {
         }
     });
 
+    // 第一次用到时才创建，JDK 21 之前只有虚拟线程示例失败，不影响其他示例
+    private static final class VirtualHolder {
+        static final ExecutorService EXECUTOR = ExecutionMode.VIRTUAL_THREAD.newExecutor(0);
+    }
+
+    // 并发由 AdaptiveExecutor 控制，delegate 只需要足够大
+    static AdaptiveExecutor adaptiveExecutor = new AdaptiveExecutor(Executors.newCachedThreadPool(), 3, 1, 64, 10000);
+
+    static AffinityExecutor affinityExecutor = new AffinityExecutor(3, "affinity-executor");
+
     /**
      * 
      * @Description 使用线程池异步执行
@@ -298,6 +317,71 @@ public class CompletableFutureTest {
         System.err.println("now:" + now + ",join:" + join + (join != null && "MESSAGE".equals(join)));
     }
 
+    /**
+     * 
+     * @Description 使用虚拟线程异步执行，阻塞时不占用平台线程；需要 JDK 21，更低版本上抛出 UnsupportedOperationException
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 上午10:48:16
+     */
+    static void thenApplyAsyncWithVirtualThreadExample() {
+        CompletableFuture<String> cf = CompletableFuture.completedFuture("message").thenApplyAsync(s -> {
+            System.err.println(Thread.currentThread());
+            try {
+                Thread.sleep(1000);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return s.toUpperCase();
+        }, VirtualHolder.EXECUTOR);
+        String now = cf.getNow(null);
+        String join = cf.join();
+        System.err.println("now:" + now + ",join:" + join + (join != null && "MESSAGE".equals(join)));
+    }
+
+    /**
+     * 
+     * @Description 使用自适应执行器：并发上限随观测到的服务时间自动调整
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午6:05:37
+     */
+    static void adaptiveExecutorExample() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(50 + rand.nextInt(50));
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                return rand.nextInt(100);
+            }, adaptiveExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        System.err.println(adaptiveExecutor);
+    }
+
+    /**
+     * 
+     * @Description 使用按 key 亲和的执行器：同一个 key 的任务在同一个线程上执行，只有某个线程积压超过窃取阈值时空闲线程才窃取它的任务
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:40:26
+     */
+    static void affinityExecutorExample() {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            int key = i % 5;
+            futures.add(CompletableFuture.supplyAsync(() -> "key " + key + " on " + Thread.currentThread().getName(), affinityExecutor.forKey(key)));
+        }
+        FanIn.allOf(futures).join().forEach(System.err::println);
+        System.err.println(affinityExecutor);
+    }
+
     static void thenApplyTestExample() throws InterruptedException, ExecutionException {
         CompletableFuture<Integer> future = CompletableFuture.supplyAsync(() -> {
             return 100;
@@ -383,6 +467,46 @@ public class CompletableFutureTest {
 
     }
 
+    /**
+     * 
+     * @Description 在任务作用域中取消：cancel(true) 中断正在 sleep 的子任务，线程立即回到线程池
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:33:12
+     */
+    static void taskScopeCancelExample() {
+        try (TaskScope scope = new TaskScope(executor, TaskScope.Policy.FAIL_FAST)) {
+            CompletableFuture<String> cf = scope.fork(() -> {
+                Thread.sleep(5000);
+                return "message".toUpperCase();
+            });
+            CompletableFuture<String> cf2 = scope.fork(() -> {
+                throw new IllegalStateException("failed");
+            });
+            scope.join().exceptionally(th -> null).join();
+            System.err.println("Failed:" + cf2.isCompletedExceptionally());
+            System.err.println("Sibling was canceled:" + cf.isCancelled());
+        }
+    }
+
+    /**
+     * 
+     * @Description 作用域截止时间 1 秒，每次查询 5 秒：rateScoped 在 1 秒时以 TimeoutException 失败，正在睡眠的查询被中断，线程池立即可以接收新任务
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午1:52:08
+     */
+    static void rateScopedExample() {
+        List<Car> cars = Arrays.asList(new Car(1, 3, "Fiesta", 2017), new Car(2, 7, "Camry", 2014), new Car(3, 2, "M2", 2008));
+        long start = System.currentTimeMillis();
+        CompletableFuture<List<Car>> rated = CompletableFutureExample.rateScoped(cars, executor, 1, TimeUnit.SECONDS).toCompletableFuture();
+        System.err.println("Failed with " + rated.handle((r, th) -> th).join() + " in " + (System.currentTimeMillis() - start) + " ms");
+        String next = CompletableFuture.supplyAsync(() -> "next task", executor).join();
+        System.err.println(next + " ran at " + (System.currentTimeMillis() - start) + " ms");
+    }
+
     /**
      * 
      * @Description 两个阶段一个是应用大写转换在原始的字符串上， 另一个阶段是应用小写转换
@@ -604,6 +728,166 @@ public class CompletableFutureTest {
         System.err.println(result.toString());
     }
 
+    /**
+     * 
+     * @Description FanIn.allOf 直接返回按输入顺序排列的结果，FanIn.anyOf 返回第一个完成的结果且不需要强制类型转换，
+     *              FanIn.firstSuccesses 返回最先成功的 k 个结果
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:58:20
+     */
+    static void fanInExample() {
+        List<String> messages = Arrays.asList("a", "b", "c");
+        List<CompletableFuture<String>> futures = messages.stream().map(msg -> CompletableFuture.completedFuture(msg).thenApplyAsync(s -> delayedUpperCase(s))).collect(Collectors.toList());
+        System.err.println(FanIn.allOf(futures).join());
+        String any = FanIn.anyOf(futures).join();
+        System.err.println(any);
+        System.err.println(FanIn.firstSuccesses(futures, 2).join());
+    }
+
+    /**
+     * 
+     * @Description 按完成顺序消费评分结果：三辆车的查询分别需要 900ms、300ms、600ms，每辆车评分完成就打印，不等最慢的一辆
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午1:12:40
+     */
+    static void completionOrderExample() {
+        List<Car> cars = Arrays.asList(new Car(1, 3, "Fiesta", 2017), new Car(2, 1, "Camry", 2014), new Car(3, 2, "M2", 2008));
+        long start = System.currentTimeMillis();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFutureExample.rateInCompletionOrder(cars, manufacturer -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(manufacturer * 300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return manufacturer + 2f;
+        }, executor)).subscribe(new Flow.Subscriber<Car>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Car car) {
+                System.err.println(car + " at " + (System.currentTimeMillis() - start) + " ms");
+            }
+
+            @Override
+            public void onError(Throwable th) {
+                done.completeExceptionally(th);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+    }
+
+    /**
+     * 
+     * @Description 评分后端故障：每次查询 200ms 后失败，断路器记录 10 次失败后打开，之后的调用不再查询，立即返回兜底值 -1
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午1:30:15
+     */
+    static void circuitBreakerExample() {
+        LongSupplier delayMillis = CompletableFutureExample.delayMillis;
+        CompletableFutureExample.delayMillis = () -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("rating backend is down");
+        };
+        try {
+            for (int i = 0; i < 15; i++) {
+                long start = System.currentTimeMillis();
+                Float rating = CompletableFutureExample.guardedRating(3).toCompletableFuture().join();
+                System.err.println(i + ": " + rating + " in " + (System.currentTimeMillis() - start) + " ms, " + CompletableFutureExample.breaker);
+            }
+        } finally {
+            CompletableFutureExample.delayMillis = delayMillis;
+        }
+    }
+
+    /**
+     * 
+     * @Description 评分后端前两次调用失败：retryingRating 按指数退避重试两次后拿到评分，退避期间不占用线程
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午1:41:52
+     */
+    static void retryExample() {
+        LongSupplier delayMillis = CompletableFutureExample.delayMillis;
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFutureExample.delayMillis = () -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("transient failure " + calls.get());
+            }
+            return 100;
+        };
+        try {
+            long start = System.currentTimeMillis();
+            Float rating = CompletableFutureExample.retryingRating(3).toCompletableFuture().join();
+            System.err.println(rating + " after " + calls.get() + " calls in " + (System.currentTimeMillis() - start) + " ms, retries=" + CompletableFutureExample.retry.retryCount());
+        } finally {
+            CompletableFutureExample.delayMillis = delayMillis;
+        }
+    }
+
+    /**
+     * 
+     * @Description 每秒 5 个许可、突发 2 个：前 2 个立即执行，之后每 200ms 执行一个，等待许可时不占用线程
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:06:12
+     */
+    static void rateLimiterExample() {
+        RateLimiter limiter = new RateLimiter(5, 2);
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int n = i;
+            futures.add(limiter.acquire().thenApply(permit -> n + " at " + (System.currentTimeMillis() - start) + " ms").toCompletableFuture());
+        }
+        FanIn.allOf(futures).join().forEach(System.err::println);
+        System.err.println(limiter);
+    }
+
+    /**
+     * 
+     * @Description 慢的 sink 不会拖住查询：sink 每条睡 100ms，rating 阶段在队列满之前照常进行，之后按 sink 的速度暂停，各阶段队列深度不超过容量
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:55:31
+     */
+    static void pipelineExample() {
+        List<String> messages = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h");
+        Pipeline<String> pipeline = Pipeline.source("load", messages.iterator(), executor)
+                .thenCompose("upperCase", (String s) -> CompletableFuture.supplyAsync(() -> s.toUpperCase(), executor), executor, 4, 4)
+                .thenApply("tag", s -> s + " on " + Thread.currentThread().getName(), executor, 1, 2);
+        pipeline.forEach("print", s -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.err.println(s);
+        }, executor, 2).toCompletableFuture().join();
+        System.err.println(pipeline + " max " + pipeline.maxQueueDepths());
+    }
+
     /**
      * 
      * @Description 异步执行
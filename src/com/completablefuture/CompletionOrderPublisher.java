@@ -0,0 +1,155 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * @Description 按完成顺序发布结果的 Flow.Publisher：每个 CompletionStage 完成时立即把结果交给订阅者，而不是等 allOf 全部完成后再 join，
+ *                下游处理可以和剩余的查询重叠进行。遵守订阅者的 request(n) 背压，只支持一个订阅者。
+ *                某个阶段失败时，失败之前已经完成的结果仍按需求量先发出，再发出 onError；失败之后才完成的结果被丢弃
+ * @date  2026年10月18日下午2:05:17
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class CompletionOrderPublisher<T> implements Flow.Publisher<T> {
+
+    private final List<CompletionStage<? extends T>> stages;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public CompletionOrderPublisher(List<? extends CompletionStage<? extends T>> stages) {
+        this.stages = new ArrayList<>(stages);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("CompletionOrderPublisher supports a single subscriber"));
+            return;
+        }
+        CompletionSubscription subscription = new CompletionSubscription(subscriber, stages.size());
+        subscriber.onSubscribe(subscription);
+        // 订阅后才挂上回调，完成的结果进入队列，由 drain 按需求量发出
+        for (CompletionStage<? extends T> stage : stages) {
+            stage.whenComplete(subscription::onStageComplete);
+        }
+        subscription.drain();
+    }
+
+    private final class CompletionSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Queue<T> completed = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final AtomicInteger remaining;
+
+        // 阶段失败，已经排队的结果发完之后再通知
+        private volatile Throwable error;
+
+        // request 的参数不合法，立即通知
+        private volatile Throwable requestError;
+
+        private volatile boolean cancelled;
+
+        private boolean terminated;
+
+        CompletionSubscription(Flow.Subscriber<? super T> subscriber, int size) {
+            this.subscriber = subscriber;
+            this.remaining = new AtomicInteger(size);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void onStageComplete(T value, Throwable th) {
+            if (th != null) {
+                fail(th);
+            } else if (value == null) {
+                fail(new NullPointerException("stage completed with null"));
+            } else if (error == null) {
+                completed.offer(value);
+            }
+            remaining.decrementAndGet();
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (terminated || cancelled) {
+                    continue;
+                }
+                if (requestError != null) {
+                    terminated = true;
+                    subscriber.onError(requestError);
+                    continue;
+                }
+                long emitted = 0;
+                long demand = requested.get();
+                T value;
+                while (emitted < demand && !cancelled && (value = completed.poll()) != null) {
+                    subscriber.onNext(value);
+                    emitted++;
+                }
+                if (emitted > 0) {
+                    requested.addAndGet(-emitted);
+                }
+                if (cancelled || !completed.isEmpty()) {
+                    continue;
+                }
+                Throwable failure = error;
+                if (failure != null) {
+                    terminated = true;
+                    subscriber.onError(failure);
+                } else if (remaining.get() == 0) {
+                    terminated = true;
+                    subscriber.onComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        // 只保留第一个失败
+        private synchronized void fail(Throwable th) {
+            if (error == null) {
+                error = th;
+            }
+        }
+    }
+}
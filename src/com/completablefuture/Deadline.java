@@ -0,0 +1,86 @@
+package com.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * @Description 请求级截止时间：在流水线入口创建一次，随 thenCompose / thenApply 的闭包传给每个 rating 调用，
+ *                错过截止时间的阶段立即以兜底值完成（和 exceptionally(th -> -1f) 一样），整批处理的延迟因此有上限
+ * @date  2026年10月18日下午3:15:26
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public long remaining(TimeUnit unit) {
+        return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 
+     * @Description 给阶段加上截止时间：截止时间已过时直接返回兜底值，否则在剩余时间内没有完成就以兜底值完成。
+     *              返回的是新的 future，不会修改传入的（可能被缓存共享的）阶段
+     * @param stage
+     * @param fallback
+     * @return CompletableFuture<T>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午3:17:02
+     */
+    public <T> CompletableFuture<T> bound(CompletionStage<T> stage, T fallback) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            return CompletableFuture.completedFuture(fallback);
+        }
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        stage.whenComplete((v, th) -> {
+            if (th == null) {
+                bounded.complete(v);
+            } else {
+                bounded.completeExceptionally(th);
+            }
+        });
+        // 每个 rating 阶段都会挂一个超时，且大多数在到期前被取消，用时间轮代替 completeOnTimeout 背后的延迟队列
+        return HashedWheelTimer.shared().completeOnTimeout(bounded, fallback, remaining, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 
+     * @Description 截止时间已过时不调用 stage，直接返回兜底值，过期之后不再发起查询；否则与 bound(CompletionStage, T) 相同
+     * @param stage
+     * @param fallback
+     * @return CompletableFuture<T>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 下午4:40:15
+     */
+    public <T> CompletableFuture<T> bound(Supplier<? extends CompletionStage<T>> stage, T fallback) {
+        if (isExpired()) {
+            return CompletableFuture.completedFuture(fallback);
+        }
+        return bound(stage.get(), fallback);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline (remaining=" + remaining(TimeUnit.MILLISECONDS) + " ms";
+    }
+}
@@ -0,0 +1,81 @@
+package com.completablefuture;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 
+ * @Description 异步任务的执行方式：公共 ForkJoinPool、固定大小线程池（custom-executor-N）、每任务一个虚拟线程。
+ *                阻塞的 rating 调用在虚拟线程上不会占住平台线程，并发度随车辆数增长而不受 CPU 核数限制。
+ *                VIRTUAL_THREAD 需要 JDK 21，更低版本上 newExecutor 抛出 UnsupportedOperationException，不会悄悄退化成平台线程
+ * @date  2026年10月18日上午10:40:36
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public enum ExecutionMode {
+
+    COMMON_POOL {
+        @Override
+        public ExecutorService newExecutor(int poolSize) {
+            // 公共池的 shutdown() 不会生效，调用方可以统一关闭
+            return ForkJoinPool.commonPool();
+        }
+    },
+
+    FIXED_POOL {
+        @Override
+        public ExecutorService newExecutor(int poolSize) {
+            return Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                int count = 1;
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    return new Thread(runnable, "custom-executor-" + count++);
+                }
+            });
+        }
+    },
+
+    VIRTUAL_THREAD {
+        @Override
+        public ExecutorService newExecutor(int poolSize) {
+            if (VIRTUAL_FACTORY != null) {
+                try {
+                    return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("cannot create virtual thread executor", e);
+                }
+            }
+            throw new UnsupportedOperationException("virtual threads require Java 21, running on Java " + System.getProperty("java.version"));
+        }
+    };
+
+    private static final Method VIRTUAL_FACTORY = virtualFactory();
+
+    /**
+     * 
+     * @Description 创建执行器，poolSize 只对 FIXED_POOL 生效
+     * @param poolSize
+     * @return ExecutorService     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 上午10:42:10
+     */
+    public abstract ExecutorService newExecutor(int poolSize);
+
+    public static boolean virtualThreadsSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    private static Method virtualFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * @Description N 元的 allOf/anyOf：CompletableFuture.allOf 会把 n 个 future 两两组合成约 2n 个内部节点的平衡树，完成后还要再遍历一遍 join 取结果。
+ *                这里每个输入只挂一个回调，用一个原子计数器倒数，结果直接按输入顺序写入预先分配好的数组，计数归零时整体完成
+ * @date  2026年10月18日下午9:40:26
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public final class FanIn {
+
+    private FanIn() {
+    }
+
+    /**
+     * 
+     * @Description 全部成功时按输入顺序返回结果。与 CompletableFuture.allOf 不同，这里是快速失败的：任一输入失败时立即以该异常完成，
+     *              不等待其余输入，其余输入继续执行、结果被丢弃。返回的列表是新分配的 ArrayList，调用方可以自由修改
+     * @param stages
+     * @return CompletableFuture<List<T>>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:42:51
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<List<T>> allOf(List<? extends CompletionStage<? extends T>> stages) {
+        CompletableFuture<List<T>> all = new CompletableFuture<>();
+        int size = stages.size();
+        if (size == 0) {
+            all.complete(new ArrayList<>());
+            return all;
+        }
+        Object[] results = new Object[size];
+        AtomicInteger remaining = new AtomicInteger(size);
+        int index = 0;
+        for (CompletionStage<? extends T> stage : stages) {
+            int i = index++;
+            stage.whenComplete((v, th) -> {
+                if (th != null) {
+                    all.completeExceptionally(th);
+                    return;
+                }
+                results[i] = v;
+                // 计数器的原子操作保证最后一个完成的线程能看到其他线程写入的结果
+                if (remaining.decrementAndGet() == 0) {
+                    all.complete(new ArrayList<>((List<T>) Arrays.asList(results)));
+                }
+            });
+        }
+        return all;
+    }
+
+    /**
+     * 
+     * @Description 与 CompletableFuture.anyOf 相同，以第一个完成的输入的结果（包括异常）完成，但不需要把输入转成数组，结果也不需要强制类型转换
+     * @param stages
+     * @return CompletableFuture<T>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:45:17
+     */
+    public static <T> CompletableFuture<T> anyOf(List<? extends CompletionStage<? extends T>> stages) {
+        CompletableFuture<T> any = new CompletableFuture<>();
+        for (CompletionStage<? extends T> stage : stages) {
+            if (any.isDone()) {
+                break;
+            }
+            stage.whenComplete((v, th) -> {
+                if (th == null) {
+                    any.complete(v);
+                } else {
+                    any.completeExceptionally(th);
+                }
+            });
+        }
+        return any;
+    }
+
+    /**
+     * 
+     * @Description 按完成顺序返回最先成功的 k 个结果；失败的输入多到不可能再凑齐 k 个时以最后一个异常完成
+     * @param stages
+     * @param k
+     * @return CompletableFuture<List<T>>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:48:02
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<List<T>> firstSuccesses(List<? extends CompletionStage<? extends T>> stages, int k) {
+        int size = stages.size();
+        if (k < 0 || k > size) {
+            throw new IllegalArgumentException("k must be in [0, " + size + "]: " + k);
+        }
+        CompletableFuture<List<T>> first = new CompletableFuture<>();
+        if (k == 0) {
+            first.complete(new ArrayList<>());
+            return first;
+        }
+        Object[] results = new Object[k];
+        // claimed 分配结果槽位，written 统计已写入的槽位，两者分开是为了在最后一个槽位写入之后才完成
+        AtomicInteger claimed = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        int maxFailures = size - k;
+        for (CompletionStage<? extends T> stage : stages) {
+            if (first.isDone()) {
+                break;
+            }
+            stage.whenComplete((v, th) -> {
+                if (th != null) {
+                    if (failures.incrementAndGet() > maxFailures) {
+                        first.completeExceptionally(th);
+                    }
+                    return;
+                }
+                int slot = claimed.getAndIncrement();
+                if (slot < k) {
+                    results[slot] = v;
+                    if (written.incrementAndGet() == k) {
+                        first.complete(new ArrayList<>((List<T>) Arrays.asList(results)));
+                    }
+                }
+            });
+        }
+        return first;
+    }
+}
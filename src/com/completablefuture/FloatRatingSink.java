@@ -0,0 +1,144 @@
+package com.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * @Description 按车辆下标写入的 float[] 评分结果：评分以 float 原样写入数组，不装箱成 Float，也不为每辆车创建 CompletableFuture，
+ *                全部写完后只完成一个 CompletionStage<float[]>
+ * @date  2026年10月18日下午3:50:33
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public final class FloatRatingSink {
+
+    /**
+     * 
+     * @Description 返回 float 的评分函数，避免 Function<Integer, Float> 的装箱
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午3:51:10
+     */
+    @FunctionalInterface
+    public interface FloatRater {
+        float rating(int manufacturerId);
+    }
+
+    private final float[] ratings;
+
+    private final AtomicInteger remaining;
+
+    private final CompletableFuture<float[]> done = new CompletableFuture<>();
+
+    public FloatRatingSink(int size) {
+        this(new float[size], size);
+    }
+
+    /**
+     * 
+     * @Description 写入调用方提供的数组（如 CarTable 的评分列），只使用前 size 个元素
+     * @param ratings
+     * @param size
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午4:31:15
+     */
+    public FloatRatingSink(float[] ratings, int size) {
+        if (size > ratings.length) {
+            throw new IllegalArgumentException("size " + size + " exceeds capacity " + ratings.length);
+        }
+        this.ratings = ratings;
+        this.remaining = new AtomicInteger(size);
+        if (size == 0) {
+            done.complete(ratings);
+        }
+    }
+
+    /**
+     * 
+     * @Description 写入第 index 辆车的评分，最后一次写入完成结果。decrementAndGet 之前的写入对完成线程可见
+     * @param index
+     * @param rating    
+     * @return void     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午3:52:46
+     */
+    public void set(int index, float rating) {
+        ratings[index] = rating;
+        if (remaining.decrementAndGet() == 0) {
+            done.complete(ratings);
+        }
+    }
+
+    public CompletionStage<float[]> result() {
+        return done;
+    }
+
+    /**
+     * 
+     * @Description 把 manufacturerIds 切成 parallelism 段，每段一个任务在 executor 上顺序评分；评分失败时写入 fallback，
+     *              executor 拒绝任务时返回的阶段以拒绝的异常完成
+     * @param manufacturerIds
+     * @param rater
+     * @param fallback
+     * @param executor
+     * @param parallelism
+     * @return CompletionStage<float[]>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午3:55:20
+     */
+    public static CompletionStage<float[]> rateAll(int[] manufacturerIds, FloatRater rater, float fallback, Executor executor, int parallelism) {
+        return rateInto(manufacturerIds, manufacturerIds.length, new float[manufacturerIds.length], rater, fallback, executor, parallelism);
+    }
+
+    /**
+     * 
+     * @Description 和 rateAll 相同，但只处理前 size 个元素，并把评分原地写入 ratings
+     * @param manufacturerIds
+     * @param size
+     * @param ratings
+     * @param rater
+     * @param fallback
+     * @param executor
+     * @param parallelism
+     * @return CompletionStage<float[]>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午4:33:02
+     */
+    public static CompletionStage<float[]> rateInto(int[] manufacturerIds, int size, float[] ratings, FloatRater rater, float fallback, Executor executor, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        FloatRatingSink sink = new FloatRatingSink(ratings, size);
+        int chunks = Math.min(parallelism, size);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) size * chunk / chunks);
+            int to = (int) ((long) size * (chunk + 1) / chunks);
+            try {
+                executor.execute(() -> {
+                    for (int i = from; i < to; i++) {
+                        float rating;
+                        try {
+                            rating = rater.rating(manufacturerIds[i]);
+                        } catch (RuntimeException e) {
+                            rating = fallback;
+                        }
+                        sink.set(i, rating);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 执行器拒绝（如已关闭或有界队列已满）时结果以异常完成，不提交剩下的段，调用方的 join 不会一直等下去
+                sink.done.completeExceptionally(e);
+                break;
+            }
+        }
+        return sink.result();
+    }
+}
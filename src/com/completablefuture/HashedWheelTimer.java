@@ -0,0 +1,355 @@
+package com.completablefuture;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 
+ * @Description 时间轮定时器：超时任务按到期的 tick 散列到环形数组的桶中，添加和取消都是 O(1)，不像 ScheduledThreadPoolExecutor
+ *                那样每次添加、取消都要调整 O(log n) 的堆。适合给每个 rating 阶段都挂上超时、而绝大多数超时在到期前就被取消的场景。
+ *                精度为一个 tick；到期任务在定时器线程上执行，必须很快（如完成一个 future）
+ * @date  2026年10月18日下午7:40:18
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class HashedWheelTimer {
+
+    // 每个 tick 最多从待添加队列中转移的任务数，避免大量添加时一个 tick 停留过久
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    private final long tickNanos;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private final Thread worker;
+
+    // 抛出异常的到期任务数
+    private final LongAdder failedTasks = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private long tick;
+
+    /**
+     * 
+     * @Description 进程内共享的定时器（10ms × 512），第一次使用时启动
+     * @return HashedWheelTimer
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:20:05
+     */
+    public static HashedWheelTimer shared() {
+        return SharedHolder.TIMER;
+    }
+
+    private static final class SharedHolder {
+        static final HashedWheelTimer TIMER = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickDuration and ticksPerWheel must be positive: " + tickDuration + ", " + ticksPerWheel);
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.worker = new Thread(this::run, "hashed-wheel-timer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 
+     * @Description 在 delay 之后执行 task，返回的 Timeout 可以在到期前取消
+     * @param task
+     * @param delay
+     * @param unit
+     * @return Timeout
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午7:43:26
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, null, delay, unit);
+    }
+
+    /**
+     * 
+     * @Description 与 CompletableFuture.completeOnTimeout 相同，future 先完成时超时任务随之取消。
+     *              超时后在 future 的默认异步执行器上完成它，后续阶段不会占用定时器线程
+     * @param future
+     * @param value
+     * @param delay
+     * @param unit
+     * @return CompletableFuture<T>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午7:45:02
+     */
+    public <T> CompletableFuture<T> completeOnTimeout(CompletableFuture<T> future, T value, long delay, TimeUnit unit) {
+        if (!future.isDone()) {
+            Timeout timeout = schedule(() -> future.defaultExecutor().execute(() -> future.complete(value)), () -> future.completeExceptionally(stopped()), delay, unit);
+            future.whenComplete((v, th) -> timeout.cancel());
+        }
+        return future;
+    }
+
+    public <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long delay, TimeUnit unit) {
+        if (!future.isDone()) {
+            Timeout timeout = schedule(() -> future.defaultExecutor().execute(() -> future.completeExceptionally(new TimeoutException())), () -> future.completeExceptionally(stopped()), delay, unit);
+            future.whenComplete((v, th) -> timeout.cancel());
+        }
+        return future;
+    }
+
+    public long failedTaskCount() {
+        return failedTasks.sum();
+    }
+
+    /**
+     * 
+     * @Description 停止定时器。尚未到期的任务不再执行：completeOnTimeout、orTimeout 挂上的 future 以 IllegalStateException 异常完成，
+     *              newTimeout 添加的任务被标记为取消
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午7:46:30
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private Timeout schedule(Runnable task, Runnable onStop, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("timer is stopped");
+        }
+        Timeout timeout = new Timeout(task, onStop, System.nanoTime() - startNanos + unit.toNanos(delay));
+        pending.offer(timeout);
+        // 与 stop 并发时定时器线程可能已经清理过待添加队列，这里再清理一次
+        if (!running) {
+            abandonPending();
+        }
+        return timeout;
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("timer is stopped");
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long deadline = tickNanos * (tick + 1);
+                long sleepNanos = deadline - (System.nanoTime() - startNanos);
+                if (sleepNanos > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                    } catch (InterruptedException e) {
+                        // 被 stop 唤醒时由 while 条件退出
+                    }
+                    continue;
+                }
+                removeCancelled();
+                transferPending();
+                wheel[(int) (tick & mask)].expire();
+                tick++;
+            }
+        } finally {
+            for (Bucket bucket : wheel) {
+                bucket.abandon();
+            }
+            abandonPending();
+        }
+    }
+
+    private void abandonPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            timeout.abandon();
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            long expireTick = timeout.deadlineNanos / tickNanos;
+            timeout.remainingRounds = (expireTick - tick) / wheel.length;
+            // 已经过期的任务放进当前 tick 的桶，马上执行
+            long ticks = Math.max(expireTick, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 
+     * @Description 一个超时任务，cancel 只做一次 CAS 并放入取消队列，由定时器线程在下一个 tick 从桶中摘除
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午7:48:11
+     */
+    public final class Timeout {
+        static final int INIT = 0;
+
+        static final int CANCELLED = 1;
+
+        static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        // 定时器停止时代替 task 执行，可以为 null
+        private final Runnable onStop;
+
+        private final long deadlineNanos;
+
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        // 以下字段只由定时器线程访问
+        private long remainingRounds;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private Bucket bucket;
+
+        Timeout(Runnable task, Runnable onStop, long deadlineNanos) {
+            this.task = task;
+            this.onStop = onStop;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            cancelled.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        void expire() {
+            if (state.compareAndSet(INIT, EXPIRED)) {
+                runSafely(task);
+            }
+        }
+
+        // 定时器停止时调用，任务不再执行，只把挂着的 future 结束掉
+        void abandon() {
+            if (state.compareAndSet(INIT, CANCELLED) && onStop != null) {
+                runSafely(onStop);
+            }
+        }
+
+        private void runSafely(Runnable action) {
+            try {
+                action.run();
+            } catch (Throwable e) {
+                // 包括 Error 在内都交给线程的 UncaughtExceptionHandler（默认打印到 stderr，应用可以替换），
+                // 定时器线程不能因为一个任务而退出，否则之后所有超时都不会再触发
+                failedTasks.increment();
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void abandon() {
+            Timeout timeout;
+            while ((timeout = head) != null) {
+                remove(timeout);
+                timeout.abandon();
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
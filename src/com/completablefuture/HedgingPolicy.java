@@ -0,0 +1,219 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * @Description 对冲请求：第一次请求在观测到的延迟分位数（如 p95）内还没有完成时，再发出一个相同的请求，
+ *                两者中先成功的结果胜出，另一个被取消。和 applyToEither 的区别是一个请求失败时会继续等待另一个，
+ *                所以 attempt 应该返回原始的查询结果，兜底值在 call 返回之后再加，否则失败的请求会带着兜底值胜出。
+ *                对冲延迟由共享的时间轮计时，到期后在执行器上发出第二个请求
+ * @date  2026年10月18日下午2:40:52
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class HedgingPolicy {
+
+    private static final int WINDOW = 1024;
+
+    // 每记录这么多个样本重新计算一次对冲延迟
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+
+    private final long minDelayMillis;
+
+    private final long[] samples = new long[WINDOW];
+
+    private int sampleCount;
+
+    private int nextSample;
+
+    private volatile long hedgeDelayMillis;
+
+    private final AtomicInteger hedges = new AtomicInteger();
+
+    private final Executor executor;
+
+    /**
+     * @param percentile         触发对冲的延迟分位数，取值 (0, 1)，如 0.95
+     * @param initialDelayMillis 还没有足够样本时使用的对冲延迟
+     * @param minDelayMillis     对冲延迟下限，避免后端很快时几乎每个请求都被对冲
+     */
+    public HedgingPolicy(double percentile, long initialDelayMillis, long minDelayMillis) {
+        this(percentile, initialDelayMillis, minDelayMillis, new CompletableFuture<Void>().defaultExecutor());
+    }
+
+    /**
+     * @param executor 发出对冲请求的执行器，不在定时器线程上调用 attempt
+     */
+    public HedgingPolicy(double percentile, long initialDelayMillis, long minDelayMillis, Executor executor) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1): " + percentile);
+        }
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.hedgeDelayMillis = Math.max(initialDelayMillis, minDelayMillis);
+        this.executor = executor;
+    }
+
+    /**
+     * 
+     * @Description 执行一次可能被对冲的调用，attempt 每调用一次就发出一次请求，最多两次。第一次请求在对冲之前失败时立即发出对冲请求。
+     *              结果确定后取消 attempt 返回的另一个 future，
+     *              要让输掉的请求真正停下来，attempt 返回的 future 的 cancel 需要中断执行中的任务
+     * @param attempt
+     * @return CompletionStage<T>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午2:44:19
+     */
+    public <T> CompletionStage<T> call(Supplier<? extends CompletionStage<T>> attempt) {
+        Call<T> call = new Call<>(attempt);
+        call.launch(true);
+        HashedWheelTimer.Timeout hedge = HashedWheelTimer.shared().newTimeout(() -> executor.execute(call::hedge), hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        call.result.whenComplete((v, th) -> {
+            hedge.cancel();
+            call.cancelAttempts();
+        });
+        return call.result;
+    }
+
+    public long hedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    public int hedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * 
+     * @Description 一次调用的状态：已发出的请求、还没有结束的请求数、是否已经对冲。
+     *              pending 和 hedged 在同一个同步块里修改，对冲请求在发出之前就已经计入 pending，
+     *              第一次请求这时失败不会让结果提前失败
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午10:12:40
+     */
+    private final class Call<T> {
+
+        final Supplier<? extends CompletionStage<T>> attempt;
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        final List<CompletableFuture<T>> attempts = new ArrayList<>(2);
+
+        final long start = System.nanoTime();
+
+        // 第一次请求在构造时就计入
+        int pending = 1;
+
+        boolean hedged;
+
+        Call(Supplier<? extends CompletionStage<T>> attempt) {
+            this.attempt = attempt;
+        }
+
+        void hedge() {
+            synchronized (this) {
+                if (hedged || result.isDone()) {
+                    return;
+                }
+                hedged = true;
+                pending++;
+            }
+            hedges.incrementAndGet();
+            launch(false);
+        }
+
+        void launch(boolean first) {
+            CompletableFuture<T> future;
+            try {
+                future = attempt.get().toCompletableFuture();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            synchronized (this) {
+                attempts.add(future);
+            }
+            if (result.isDone()) {
+                future.cancel(true);
+            }
+            future.whenComplete((v, th) -> {
+                if (first) {
+                    recordFirst(th);
+                }
+                if (th == null) {
+                    result.complete(v);
+                } else {
+                    failed(th);
+                }
+            });
+        }
+
+        private void failed(Throwable th) {
+            boolean hedgeNow;
+            synchronized (this) {
+                if (--pending > 0) {
+                    return;
+                }
+                // 第一次请求在对冲之前就失败了，立即发出对冲请求；所有已发出的请求都失败了才让结果失败
+                hedgeNow = !hedged && !result.isDone();
+                hedged = true;
+                if (hedgeNow) {
+                    pending++;
+                }
+            }
+            if (hedgeNow) {
+                hedges.incrementAndGet();
+                launch(false);
+            } else {
+                result.completeExceptionally(th);
+            }
+        }
+
+        // 对冲延迟取自第一次请求的延迟分布，从调用开始计时，不管它是否胜出都记录；只记录胜者会让分位数越算越小、对冲越来越多。
+        // 被取消的请求至少要这么久才能完成，用取消时已经过去的时间作为删失的下界；失败的请求不计入
+        private void recordFirst(Throwable th) {
+            if (th == null || th instanceof CancellationException) {
+                record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+
+        void cancelAttempts() {
+            List<CompletableFuture<T>> launched;
+            synchronized (this) {
+                launched = new ArrayList<>(attempts);
+            }
+            for (CompletableFuture<T> future : launched) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private synchronized void record(long latencyMillis) {
+        samples[nextSample] = latencyMillis;
+        nextSample = (nextSample + 1) % WINDOW;
+        if (sampleCount < WINDOW) {
+            sampleCount++;
+        }
+        if (nextSample % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            long delay = sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+            hedgeDelayMillis = Math.max(delay, minDelayMillis);
+        }
+    }
+}
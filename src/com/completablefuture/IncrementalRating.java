@@ -0,0 +1,224 @@
+package com.completablefuture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * 
+ * @Description 增量评分：记录每辆车评分时的输入摘要（manufacturerId、model、year）和所属 manufacturerId 的版本号，
+ *                下一次只把新增的、输入变化的、或者 manufacturerId 被标记为变化的车交给评分，其余的车直接沿用上一次的评分，
+ *                评分完成后再合并回去。一次运行的评分开销与变化量成正比，而不是与车队规模成正比。
+ *                状态保存在一个小文件里，进程重启后仍然有效；兜底的负数评分不会被记录，下一次会重新评分
+ * @date  2026年10月18日下午11:20:14
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class IncrementalRating {
+
+    private static final int MAGIC = 0x494E4352;
+
+    private static final int FORMAT = 1;
+
+    private final Path file;
+
+    // manufacturerId -> 版本号，manufacturerChanged 时递增
+    private final Map<Integer, Long> manufacturerVersions = new HashMap<>();
+
+    // 车辆 id -> 上一次评分时的输入和结果
+    private final Map<Integer, Rated> rated = new HashMap<>();
+
+    private int lastDirty;
+
+    private IncrementalRating(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 
+     * @Description 读取状态文件，不存在时从空状态开始，第一次运行所有车都需要评分
+     * @param file
+     * @return IncrementalRating
+     * @throws IOException 文件不是增量评分状态或者无法读取
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:22:40
+     */
+    public static IncrementalRating open(Path file) throws IOException {
+        IncrementalRating incremental = new IncrementalRating(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("not an incremental rating state: " + file);
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                incremental.manufacturerVersions.put(in.readInt(), in.readLong());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                int id = in.readInt();
+                incremental.rated.put(id, new Rated(in.readInt(), in.readLong(), in.readFloat()));
+            }
+        } catch (NoSuchFileException e) {
+            // 第一次运行
+        }
+        return incremental;
+    }
+
+    /**
+     * 
+     * @Description 打开当前目录下的 ratings-{example}.incremental，每个示例各用一个文件
+     * @param example 示例名，与 RatingSnapshot.openDefault 的相同
+     * @return IncrementalRating
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:23:51
+     */
+    public static IncrementalRating openDefault(String example) {
+        try {
+            return open(Paths.get("ratings-" + example + ".incremental"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 
+     * @Description 标记 manufacturerId 的评分输入已经变化，这个 manufacturerId 下的所有车下一次都会重新评分。
+     *              示例里注册为 RatingSnapshot 的变化监听器，后台刷新查到新的评分时调用
+     * @param manufacturerId
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:25:06
+     */
+    public synchronized void manufacturerChanged(int manufacturerId) {
+        manufacturerVersions.merge(manufacturerId, 1L, Long::sum);
+    }
+
+    /**
+     * 
+     * @Description 干净的车直接设置上一次的评分，只把需要评分的车交给 rateDirty，完成后把结果合并回状态并返回全部车辆。
+     *              已经不在 cars 中的车从状态中移除
+     * @param cars
+     * @param rateDirty 对需要评分的车评分，返回评分后的车
+     * @return CompletionStage<List<Car>>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:27:33
+     */
+    public CompletionStage<List<Car>> rate(List<Car> cars, Function<List<Car>, ? extends CompletionStage<List<Car>>> rateDirty) {
+        List<Car> dirty = new ArrayList<>();
+        // 按开始评分时的版本号记录结果，评分期间 manufacturerId 再次变化时下一次仍然是脏的
+        Map<Integer, Long> versions = new HashMap<>();
+        synchronized (this) {
+            Set<Integer> ids = new HashSet<>();
+            for (Car car : cars) {
+                ids.add(car.id);
+                long version = manufacturerVersions.getOrDefault(car.manufacturerId, 0L);
+                Rated previous = rated.get(car.id);
+                if (previous != null && previous.inputHash == inputHash(car) && previous.manufacturerVersion == version) {
+                    car.setRating(previous.rating);
+                } else {
+                    dirty.add(car);
+                    versions.put(car.id, version);
+                }
+            }
+            rated.keySet().retainAll(ids);
+            lastDirty = dirty.size();
+        }
+        return rateDirty.apply(dirty).thenApply(ratedCars -> {
+            merge(ratedCars, versions);
+            return cars;
+        });
+    }
+
+    public synchronized int lastDirtyCount() {
+        return lastDirty;
+    }
+
+    public synchronized int size() {
+        return rated.size();
+    }
+
+    /**
+     * 
+     * @Description 先写临时文件再替换，写到一半失败时保留上一次的状态
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:30:18
+     */
+    public synchronized void save() {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(manufacturerVersions.size());
+                for (Map.Entry<Integer, Long> entry : manufacturerVersions.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeInt(rated.size());
+                for (Map.Entry<Integer, Rated> entry : rated.entrySet()) {
+                    Rated r = entry.getValue();
+                    out.writeInt(entry.getKey());
+                    out.writeInt(r.inputHash);
+                    out.writeLong(r.manufacturerVersion);
+                    out.writeFloat(r.rating);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "IncrementalRating (cars=" + rated.size() + ", lastDirty=" + lastDirty + ", manufacturers=" + manufacturerVersions.size() + ")";
+    }
+
+    private synchronized void merge(List<Car> ratedCars, Map<Integer, Long> versions) {
+        for (Car car : ratedCars) {
+            Long version = versions.get(car.id);
+            if (version == null || car.rating < 0 || Float.isNaN(car.rating)) {
+                continue;
+            }
+            rated.put(car.id, new Rated(inputHash(car), version, car.rating));
+        }
+    }
+
+    private static int inputHash(Car car) {
+        return Objects.hash(car.manufacturerId, car.model, car.year);
+    }
+
+    private static final class Rated {
+
+        final int inputHash;
+
+        final long manufacturerVersion;
+
+        final float rating;
+
+        Rated(int inputHash, long manufacturerVersion, float rating) {
+            this.inputHash = inputHash;
+            this.manufacturerVersion = manufacturerVersion;
+            this.rating = rating;
+        }
+    }
+}
@@ -2,7 +2,14 @@ package com.completablefuture;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 
@@ -14,23 +21,49 @@ import java.util.stream.Collectors;
  */
 public class ParallelStreamExample {
 
+    static LongSupplier delayMillis = () -> 5000;
+
+    static ForkJoinPool ratingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("rating-pool-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+
+    static RatingCache cache = new RatingCache(manufacturer -> CompletableFuture.completedFuture(rating(manufacturer)), 1000, 10, TimeUnit.MINUTES);
+
     public static void main(String[] args) {
         long start = System.currentTimeMillis();
 
+        // 对比用的示例只做并行流评分，评分快照和增量评分只在 CompletableFutureExample 中使用，不会额外发出后台查询
         List<Car> cars = cars();
-        cars.parallelStream().map(car -> {
-            float rating = rating(car.manufacturerId);
-            car.setRating(rating);
-            return car;
-        }).collect(Collectors.toList());
+        rate(cars, manufacturer -> cache.get(manufacturer).toCompletableFuture().join());
 
-        cars.forEach(System.out::println);
+        AsyncSink<Car> out = AsyncSink.stdout(8192, Car::appendTo);
+        cars.forEach(out);
+        out.flush();
 
         long end = System.currentTimeMillis();
 
         System.out.println("Took " + (end - start) + " ms.");
     }
 
+    static List<Car> rate(List<Car> cars, Function<Integer, Float> rater) {
+        // 在专用线程池的任务里执行并行流，并行流会使用当前线程所属的 ForkJoinPool 而不是公共池
+        ratingPool.submit(() -> cars.parallelStream().map(car -> {
+            float rating = rater.apply(car.manufacturerId);
+            car.setRating(rating);
+            return car;
+        }).collect(Collectors.toList())).join();
+        return cars;
+    }
+
+    static CarTable rateTable(CarTable table) {
+        int[] manufacturerIds = table.manufacturerIdColumn();
+        float[] ratings = table.ratingColumn();
+        ratingPool.submit(() -> IntStream.range(0, table.size()).parallel().forEach(row -> ratings[row] = rating(manufacturerIds[row]))).join();
+        return table;
+    }
+
     static float rating(int manufacturer) {
         try {
             simulateDelay();
@@ -59,6 +92,32 @@ public class ParallelStreamExample {
     }
 
     private static void simulateDelay() throws InterruptedException {
-        Thread.sleep(5000);
+        // 通过 ManagedBlocker 阻塞，ForkJoinPool 会在阻塞期间补充线程，保持并行度
+        ForkJoinPool.managedBlock(new DelayBlocker(delayMillis.getAsLong()));
+    }
+
+    static final class DelayBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final long millis;
+
+        private boolean done;
+
+        DelayBlocker(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!done) {
+                Thread.sleep(millis);
+                done = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done || millis <= 0;
+        }
     }
 }
@@ -0,0 +1,333 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 
+ * @Description 多阶段流水线：load -> rating -> transform -> sink 每个阶段在自己的执行器上运行，有自己的并行度，阶段之间是有界队列。
+ *                不像 thenCompose/thenApply/whenComplete 链那样在完成上一阶段的线程上继续执行，阻塞 I/O、CPU 计算和输出可以分别调优。
+ *                背压不占用线程：阶段只有在下游队列预留到位置之后才开始处理下一个元素，慢的 sink 只会让上游在队列满后暂停，
+ *                不会阻塞查询线程。并行度大于 1 的阶段不保证输出顺序。
+ *                用 source 创建，thenApply/thenCompose 追加阶段，forEach 追加 sink 并启动；每个 Pipeline 只能追加一次
+ * @date  2026年10月18日下午11:40:08
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public final class Pipeline<T> {
+
+    private static final Object NULL = new Object();
+
+    private static final Object END = new Object();
+
+    private final Context context;
+
+    private final Stage tail;
+
+    private Pipeline(Context context, Stage tail) {
+        this.context = context;
+        this.tail = tail;
+    }
+
+    /**
+     * 
+     * @Description 数据源阶段：在 executor 上逐个调用 source.next()，迭代器可以是延迟加载的，只有下游队列有空位时才读取下一个
+     * @param name
+     * @param source
+     * @param executor
+     * @return Pipeline<T>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:43:26
+     */
+    public static <T> Pipeline<T> source(String name, Iterator<? extends T> source, Executor executor) {
+        Context context = new Context();
+        Stage stage = new Stage(context, name, executor, 1, 0, item -> CompletableFuture.completedFuture(source.hasNext() ? source.next() : END));
+        stage.source = true;
+        context.stages.add(stage);
+        return new Pipeline<>(context, stage);
+    }
+
+    /**
+     * 
+     * @Description 同步转换阶段，适合 CPU 计算
+     * @param name
+     * @param fn
+     * @param executor
+     * @param parallelism   同时处理的元素数
+     * @param queueCapacity 本阶段输入队列的容量
+     * @return Pipeline<R>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:45:02
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Pipeline<R> thenApply(String name, Function<? super T, ? extends R> fn, Executor executor, int parallelism, int queueCapacity) {
+        return append(name, executor, parallelism, queueCapacity, item -> CompletableFuture.completedFuture(fn.apply((T) item)));
+    }
+
+    /**
+     * 
+     * @Description 异步阶段，适合 rating 这类返回 CompletionStage 的查询；parallelism 限制同时在途的查询数
+     * @param name
+     * @param fn
+     * @param executor
+     * @param parallelism
+     * @param queueCapacity
+     * @return Pipeline<R>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:46:37
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Pipeline<R> thenCompose(String name, Function<? super T, ? extends CompletionStage<R>> fn, Executor executor, int parallelism, int queueCapacity) {
+        return append(name, executor, parallelism, queueCapacity, item -> (CompletionStage<Object>) fn.apply((T) item));
+    }
+
+    /**
+     * 
+     * @Description 追加 sink 并启动流水线。sink 的并行度为 1，consumer 不需要线程安全。任一阶段失败时返回的阶段以该异常完成，其余元素被丢弃
+     * @param name
+     * @param consumer
+     * @param executor
+     * @param queueCapacity
+     * @return CompletionStage<Void>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:48:15
+     */
+    @SuppressWarnings("unchecked")
+    public CompletionStage<Void> forEach(String name, Consumer<? super T> consumer, Executor executor, int queueCapacity) {
+        append(name, executor, 1, queueCapacity, item -> {
+            consumer.accept((T) item);
+            return CompletableFuture.completedFuture(null);
+        });
+        context.stages.get(0).drain();
+        return context.result;
+    }
+
+    /**
+     * 
+     * @Description 各阶段输入队列的当前深度，按阶段顺序排列，不包括数据源
+     * @return Map<String,Integer>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:49:40
+     */
+    public Map<String, Integer> queueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Stage stage : context.stages) {
+            if (!stage.source) {
+                depths.put(stage.name, stage.queued.get());
+            }
+        }
+        return depths;
+    }
+
+    public Map<String, Integer> maxQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (Stage stage : context.stages) {
+            if (!stage.source) {
+                depths.put(stage.name, stage.maxQueued.get());
+            }
+        }
+        return depths;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : context.stages) {
+            sb.append(sb.length() == 0 ? "" : " -> ").append(stage.name);
+            if (!stage.source) {
+                sb.append("[queued=").append(stage.queued.get()).append('/').append(stage.capacity).append(", max=").append(stage.maxQueued.get()).append(", active=").append(stage.active.get()).append(']');
+            }
+        }
+        return "Pipeline (" + sb + ")";
+    }
+
+    private <R> Pipeline<R> append(String name, Executor executor, int parallelism, int queueCapacity, Function<Object, CompletionStage<Object>> fn) {
+        if (parallelism <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("parallelism and queueCapacity must be positive: " + parallelism + ", " + queueCapacity);
+        }
+        if (tail.downstream != null) {
+            throw new IllegalStateException("stage " + tail.name + " already has a downstream stage");
+        }
+        Stage stage = new Stage(context, name, executor, parallelism, queueCapacity, fn);
+        stage.upstream = tail;
+        tail.downstream = stage;
+        context.stages.add(stage);
+        return new Pipeline<>(context, stage);
+    }
+
+    private static final class Context {
+
+        final List<Stage> stages = new ArrayList<>();
+
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        volatile boolean failed;
+
+        void fail(Throwable th) {
+            failed = true;
+            result.completeExceptionally(th);
+        }
+    }
+
+    private static final class Stage {
+
+        final Context context;
+
+        final String name;
+
+        final Executor executor;
+
+        final int parallelism;
+
+        final int capacity;
+
+        final Function<Object, CompletionStage<Object>> fn;
+
+        final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+
+        // 队列中的元素加上上游已经预留、还在处理中的位置，不超过 capacity
+        final AtomicInteger occupied = new AtomicInteger();
+
+        final AtomicInteger queued = new AtomicInteger();
+
+        final AtomicInteger maxQueued = new AtomicInteger();
+
+        final AtomicInteger active = new AtomicInteger();
+
+        final AtomicInteger wip = new AtomicInteger();
+
+        Stage upstream;
+
+        Stage downstream;
+
+        boolean source;
+
+        volatile boolean exhausted;
+
+        volatile boolean upstreamDone;
+
+        // 只在 drain 中读写
+        boolean done;
+
+        Stage(Context context, String name, Executor executor, int parallelism, int capacity, Function<Object, CompletionStage<Object>> fn) {
+            this.context = context;
+            this.name = name;
+            this.executor = executor;
+            this.parallelism = parallelism;
+            this.capacity = capacity;
+            this.fn = fn;
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!context.failed && active.get() < parallelism && hasInput()) {
+                    // 先在下游队列预留位置，预留不到说明下游已满，等下游取走元素时再被唤醒
+                    if (downstream != null && !downstream.reserve()) {
+                        break;
+                    }
+                    active.incrementAndGet();
+                    start(poll());
+                }
+                if (!done && !context.failed && inputDone() && active.get() == 0) {
+                    done = true;
+                    if (downstream != null) {
+                        downstream.upstreamDone = true;
+                        downstream.drain();
+                    } else {
+                        context.result.complete(null);
+                    }
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private boolean hasInput() {
+            return source ? !exhausted : !queue.isEmpty();
+        }
+
+        private boolean inputDone() {
+            return source ? exhausted : upstreamDone && queue.isEmpty();
+        }
+
+        private Object poll() {
+            if (source) {
+                return null;
+            }
+            Object item = queue.poll();
+            queued.decrementAndGet();
+            occupied.decrementAndGet();
+            upstream.drain();
+            return item == NULL ? null : item;
+        }
+
+        private boolean reserve() {
+            for (;;) {
+                int current = occupied.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (occupied.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void offer(Object item) {
+            queue.offer(item == null ? NULL : item);
+            maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+            drain();
+        }
+
+        private void start(Object item) {
+            try {
+                executor.execute(() -> {
+                    CompletionStage<Object> stage;
+                    try {
+                        stage = Objects.requireNonNull(fn.apply(item), "stage function returned null");
+                    } catch (Throwable e) {
+                        // 包括 Error 在内都让整条流水线失败，否则 active 不会归还，流水线永远不会结束
+                        CompletableFuture<Object> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(e);
+                        stage = failed;
+                    }
+                    stage.whenComplete(this::complete);
+                });
+            } catch (Throwable e) {
+                context.fail(e);
+                active.decrementAndGet();
+            }
+        }
+
+        private void complete(Object result, Throwable th) {
+            if (th != null) {
+                context.fail(th);
+            } else if (result == END) {
+                exhausted = true;
+                downstream.occupied.decrementAndGet();
+            } else if (downstream != null) {
+                downstream.offer(result);
+            }
+            active.decrementAndGet();
+            drain();
+        }
+    }
+}
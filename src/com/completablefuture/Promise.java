@@ -0,0 +1,843 @@
+package com.completablefuture;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 
+ * @Description 轻量的无锁 CompletionStage 实现，用于完成回调密集的场景。CompletableFuture 每个依赖阶段要分配一个新的 future 和一个 Completion 节点，
+ *                这里依赖阶段本身就是挂在源阶段栈上的节点，每个 thenApply 只分配一个对象；完成时用循环而不是递归依次执行依赖链，
+ *                一串同步的 thenApply 在完成线程上一次执行完。等待线程先自旋再 park，等待节点和 thenCombine 的中继节点按线程缓存复用。
+ *                语义与 CompletableFuture 相同：依赖阶段收到 CompletionException 包装的异常，get 抛出 ExecutionException，join 抛出 CompletionException
+ * @date  2026年10月18日下午8:45:12
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class Promise<T> implements CompletionStage<T>, Future<T> {
+
+    // 多核时 get/join 先自旋这么多次再 park，结果通常在几微秒内到达时可以省掉 park/unpark 的系统调用
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 10 : 0;
+
+    private static final int BOTH = 1;
+
+    private static final int EITHER = 2;
+
+    private static final int APPLY = 1;
+
+    private static final int ACCEPT = 2;
+
+    private static final int RUN = 3;
+
+    private static final int HANDLE = 4;
+
+    private static final int WHEN = 5;
+
+    private static final int EXCEPTIONALLY = 6;
+
+    private static final int COMPOSE = 7;
+
+    private static final int COMBINE = 8;
+
+    private static final int ACCEPT_BOTH = 9;
+
+    private static final int RUN_BOTH = 10;
+
+    // 以下两种只是节点，不对外暴露：等待线程和二元阶段第二个源的中继
+    private static final int WAITER = 11;
+
+    private static final int RELAY = 12;
+
+    private static final int FIRED = 13;
+
+    // 值为 null 时的结果
+    private static final Object NIL = new Object();
+
+    // compute 返回它表示结果稍后由其他阶段完成（thenCompose）
+    private static final Object PENDING = new Object();
+
+    private static final Promise<Object> TOMBSTONE = new Promise<>();
+
+    private static final Executor ASYNC_POOL = new CompletableFuture<Void>().defaultExecutor();
+
+    private static final ThreadLocal<NodePool> POOL = ThreadLocal.withInitial(NodePool::new);
+
+    private static final VarHandle RESULT;
+
+    private static final VarHandle STACK;
+
+    private static final VarHandle PENDING_INPUTS;
+
+    private static final VarHandle MODE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            RESULT = lookup.findVarHandle(Promise.class, "result", Object.class);
+            STACK = lookup.findVarHandle(Promise.class, "stack", Promise.class);
+            PENDING_INPUTS = lookup.findVarHandle(BiPromise.class, "pendingInputs", int.class);
+            MODE = lookup.findVarHandle(Promise.class, "mode", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Object result;
+
+    // 依赖本阶段的节点组成的栈，完成后被换成 TOMBSTONE
+    private volatile Promise<?> stack;
+
+    // 以下字段只在本对象作为其他阶段的依赖节点时使用，二元阶段的额外状态在 BiPromise 中
+    private Promise<?> next;
+
+    private Object input;
+
+    private Object fn;
+
+    private Executor executor;
+
+    private int mode;
+
+    public Promise() {
+    }
+
+    private Promise(int mode, Object fn, Executor executor) {
+        this.mode = mode;
+        this.fn = fn;
+        this.executor = executor;
+    }
+
+    public static <T> Promise<T> completed(T value) {
+        Promise<T> promise = new Promise<>();
+        promise.result = encode(value);
+        promise.stack = TOMBSTONE;
+        return promise;
+    }
+
+    public static <T> Promise<T> failed(Throwable ex) {
+        Promise<T> promise = new Promise<>();
+        promise.result = new Failure(ex);
+        promise.stack = TOMBSTONE;
+        return promise;
+    }
+
+    public boolean complete(T value) {
+        return completeWith(encode(value));
+    }
+
+    public boolean completeExceptionally(Throwable ex) {
+        if (ex == null) {
+            throw new NullPointerException();
+        }
+        return completeWith(new Failure(ex));
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return completeWith(new Failure(new CancellationException())) || isCancelled();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        Object r = result;
+        return r instanceof Failure && ((Failure) r).ex instanceof CancellationException;
+    }
+
+    @Override
+    public boolean isDone() {
+        return result != null;
+    }
+
+    public boolean isCompletedExceptionally() {
+        return result instanceof Failure;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        Object r = result;
+        if (r == null) {
+            r = await(true, false, 0L);
+        }
+        return reportGet(r);
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        Object r = result;
+        if (r == null && (r = await(true, true, unit.toNanos(timeout))) == null) {
+            throw new TimeoutException();
+        }
+        return reportGet(r);
+    }
+
+    public T join() {
+        Object r = result;
+        if (r == null) {
+            try {
+                r = await(false, false, 0L);
+            } catch (InterruptedException e) {
+                // 不可中断的等待不会抛出
+                throw new IllegalStateException(e);
+            }
+        }
+        return reportJoin(r);
+    }
+
+    public T getNow(T valueIfAbsent) {
+        Object r = result;
+        return r == null ? valueIfAbsent : reportJoin(r);
+    }
+
+    @Override
+    public <U> Promise<U> thenApply(Function<? super T, ? extends U> fn) {
+        return unary(APPLY, fn, null);
+    }
+
+    @Override
+    public <U> Promise<U> thenApplyAsync(Function<? super T, ? extends U> fn) {
+        return unary(APPLY, fn, ASYNC_POOL);
+    }
+
+    @Override
+    public <U> Promise<U> thenApplyAsync(Function<? super T, ? extends U> fn, Executor executor) {
+        return unary(APPLY, fn, screen(executor));
+    }
+
+    @Override
+    public Promise<Void> thenAccept(Consumer<? super T> action) {
+        return unary(ACCEPT, action, null);
+    }
+
+    @Override
+    public Promise<Void> thenAcceptAsync(Consumer<? super T> action) {
+        return unary(ACCEPT, action, ASYNC_POOL);
+    }
+
+    @Override
+    public Promise<Void> thenAcceptAsync(Consumer<? super T> action, Executor executor) {
+        return unary(ACCEPT, action, screen(executor));
+    }
+
+    @Override
+    public Promise<Void> thenRun(Runnable action) {
+        return unary(RUN, action, null);
+    }
+
+    @Override
+    public Promise<Void> thenRunAsync(Runnable action) {
+        return unary(RUN, action, ASYNC_POOL);
+    }
+
+    @Override
+    public Promise<Void> thenRunAsync(Runnable action, Executor executor) {
+        return unary(RUN, action, screen(executor));
+    }
+
+    @Override
+    public <U, V> Promise<V> thenCombine(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+        return binary(other, COMBINE, BOTH, fn, null);
+    }
+
+    @Override
+    public <U, V> Promise<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn) {
+        return binary(other, COMBINE, BOTH, fn, ASYNC_POOL);
+    }
+
+    @Override
+    public <U, V> Promise<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super T, ? super U, ? extends V> fn, Executor executor) {
+        return binary(other, COMBINE, BOTH, fn, screen(executor));
+    }
+
+    @Override
+    public <U> Promise<Void> thenAcceptBoth(CompletionStage<? extends U> other, BiConsumer<? super T, ? super U> action) {
+        return binary(other, ACCEPT_BOTH, BOTH, action, null);
+    }
+
+    @Override
+    public <U> Promise<Void> thenAcceptBothAsync(CompletionStage<? extends U> other, BiConsumer<? super T, ? super U> action) {
+        return binary(other, ACCEPT_BOTH, BOTH, action, ASYNC_POOL);
+    }
+
+    @Override
+    public <U> Promise<Void> thenAcceptBothAsync(CompletionStage<? extends U> other, BiConsumer<? super T, ? super U> action, Executor executor) {
+        return binary(other, ACCEPT_BOTH, BOTH, action, screen(executor));
+    }
+
+    @Override
+    public Promise<Void> runAfterBoth(CompletionStage<?> other, Runnable action) {
+        return binary(other, RUN_BOTH, BOTH, action, null);
+    }
+
+    @Override
+    public Promise<Void> runAfterBothAsync(CompletionStage<?> other, Runnable action) {
+        return binary(other, RUN_BOTH, BOTH, action, ASYNC_POOL);
+    }
+
+    @Override
+    public Promise<Void> runAfterBothAsync(CompletionStage<?> other, Runnable action, Executor executor) {
+        return binary(other, RUN_BOTH, BOTH, action, screen(executor));
+    }
+
+    @Override
+    public <U> Promise<U> applyToEither(CompletionStage<? extends T> other, Function<? super T, U> fn) {
+        return binary(other, APPLY, EITHER, fn, null);
+    }
+
+    @Override
+    public <U> Promise<U> applyToEitherAsync(CompletionStage<? extends T> other, Function<? super T, U> fn) {
+        return binary(other, APPLY, EITHER, fn, ASYNC_POOL);
+    }
+
+    @Override
+    public <U> Promise<U> applyToEitherAsync(CompletionStage<? extends T> other, Function<? super T, U> fn, Executor executor) {
+        return binary(other, APPLY, EITHER, fn, screen(executor));
+    }
+
+    @Override
+    public Promise<Void> acceptEither(CompletionStage<? extends T> other, Consumer<? super T> action) {
+        return binary(other, ACCEPT, EITHER, action, null);
+    }
+
+    @Override
+    public Promise<Void> acceptEitherAsync(CompletionStage<? extends T> other, Consumer<? super T> action) {
+        return binary(other, ACCEPT, EITHER, action, ASYNC_POOL);
+    }
+
+    @Override
+    public Promise<Void> acceptEitherAsync(CompletionStage<? extends T> other, Consumer<? super T> action, Executor executor) {
+        return binary(other, ACCEPT, EITHER, action, screen(executor));
+    }
+
+    @Override
+    public Promise<Void> runAfterEither(CompletionStage<?> other, Runnable action) {
+        return binary(other, RUN, EITHER, action, null);
+    }
+
+    @Override
+    public Promise<Void> runAfterEitherAsync(CompletionStage<?> other, Runnable action) {
+        return binary(other, RUN, EITHER, action, ASYNC_POOL);
+    }
+
+    @Override
+    public Promise<Void> runAfterEitherAsync(CompletionStage<?> other, Runnable action, Executor executor) {
+        return binary(other, RUN, EITHER, action, screen(executor));
+    }
+
+    @Override
+    public <U> Promise<U> thenCompose(Function<? super T, ? extends CompletionStage<U>> fn) {
+        return unary(COMPOSE, fn, null);
+    }
+
+    @Override
+    public <U> Promise<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn) {
+        return unary(COMPOSE, fn, ASYNC_POOL);
+    }
+
+    @Override
+    public <U> Promise<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn, Executor executor) {
+        return unary(COMPOSE, fn, screen(executor));
+    }
+
+    @Override
+    public <U> Promise<U> handle(BiFunction<? super T, Throwable, ? extends U> fn) {
+        return unary(HANDLE, fn, null);
+    }
+
+    @Override
+    public <U> Promise<U> handleAsync(BiFunction<? super T, Throwable, ? extends U> fn) {
+        return unary(HANDLE, fn, ASYNC_POOL);
+    }
+
+    @Override
+    public <U> Promise<U> handleAsync(BiFunction<? super T, Throwable, ? extends U> fn, Executor executor) {
+        return unary(HANDLE, fn, screen(executor));
+    }
+
+    @Override
+    public Promise<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        return unary(WHEN, action, null);
+    }
+
+    @Override
+    public Promise<T> whenCompleteAsync(BiConsumer<? super T, ? super Throwable> action) {
+        return unary(WHEN, action, ASYNC_POOL);
+    }
+
+    @Override
+    public Promise<T> whenCompleteAsync(BiConsumer<? super T, ? super Throwable> action, Executor executor) {
+        return unary(WHEN, action, screen(executor));
+    }
+
+    @Override
+    public Promise<T> exceptionally(Function<Throwable, ? extends T> fn) {
+        return unary(EXCEPTIONALLY, fn, null);
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        whenComplete((v, th) -> {
+            if (th == null) {
+                future.complete(v);
+            } else {
+                future.completeExceptionally(th);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public String toString() {
+        Object r = result;
+        return super.toString() + (r == null ? "[Not completed]" : r instanceof Failure ? "[Completed exceptionally: " + ((Failure) r).ex + "]" : "[Completed normally]");
+    }
+
+    private <U> Promise<U> unary(int mode, Object fn, Executor executor) {
+        if (fn == null) {
+            throw new NullPointerException();
+        }
+        Promise<U> dependent = new Promise<>(mode, fn, executor);
+        register(dependent);
+        return dependent;
+    }
+
+    private <U> Promise<U> binary(CompletionStage<?> other, int mode, int arity, Object fn, Executor executor) {
+        if (other == null || fn == null) {
+            throw new NullPointerException();
+        }
+        Promise<U> dependent = new BiPromise<>(mode, fn, executor, arity);
+        if (other instanceof Promise) {
+            ((Promise<?>) other).register(POOL.get().obtain(RELAY, dependent));
+        } else {
+            other.whenComplete((v, th) -> {
+                Promise<?> done = dependent.arrive(th == null ? encode(v) : new Failure(th), true);
+                if (done != null) {
+                    drain(done.takeStack(null));
+                }
+            });
+        }
+        register(dependent);
+        return dependent;
+    }
+
+    private void register(Promise<?> node) {
+        if (!push(node)) {
+            // 已经完成，在调用线程上直接执行
+            node.input = result;
+            drain(node);
+        }
+    }
+
+    private boolean push(Promise<?> node) {
+        for (;;) {
+            Promise<?> head = stack;
+            if (head == TOMBSTONE) {
+                node.next = null;
+                return false;
+            }
+            node.next = head;
+            if (STACK.weakCompareAndSet(this, head, node)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean completeWith(Object r) {
+        if (!RESULT.compareAndSet(this, null, r)) {
+            return false;
+        }
+        drain(takeStack(null));
+        return true;
+    }
+
+    /**
+     * 
+     * @Description 取下本阶段的依赖栈，每个节点带上本阶段的结果接到待执行链表 work 上
+     * @param work
+     * @return Promise<?>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:52:40
+     */
+    private Promise<?> takeStack(Promise<?> work) {
+        Object r = result;
+        Promise<?> head = (Promise<?>) STACK.getAndSet(this, TOMBSTONE);
+        while (head != null && head != TOMBSTONE) {
+            Promise<?> next = head.next;
+            head.input = r;
+            head.next = work;
+            work = head;
+            head = next;
+        }
+        return work;
+    }
+
+    /**
+     * 
+     * @Description 依次执行链表上的节点；节点完成的依赖阶段把自己的依赖栈接到链表上，整条依赖链在一个循环里执行完，不会递归
+     * @param work
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:55:06
+     */
+    private static void drain(Promise<?> work) {
+        while (work != null) {
+            Promise<?> node = work;
+            work = node.next;
+            node.next = null;
+            Promise<?> done = node.fire();
+            if (done != null) {
+                work = done.takeStack(work);
+            }
+        }
+    }
+
+    /**
+     * 
+     * @Description 源阶段完成后执行本节点，返回因此同步完成的依赖阶段，没有则返回 null
+     * @return Promise<?>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:57:21
+     */
+    private Promise<?> fire() {
+        Object in = input;
+        input = null;
+        if (mode == WAITER) {
+            Thread waiter = (Thread) fn;
+            fn = null;
+            // 标记之后等待线程可以回收本节点，之后不能再访问它
+            MODE.setRelease(this, FIRED);
+            LockSupport.unpark(waiter);
+            return null;
+        }
+        if (mode == RELAY) {
+            Promise<?> dependent = (Promise<?>) fn;
+            POOL.get().recycle(this);
+            return dependent.arrive(in, true);
+        }
+        return arrive(in, false);
+    }
+
+    private Promise<?> arrive(Object in, boolean fromSecond) {
+        if (this instanceof BiPromise) {
+            BiPromise<?> binary = (BiPromise<?>) this;
+            if (binary.arity == BOTH) {
+                if (fromSecond) {
+                    binary.second = in;
+                } else {
+                    binary.first = in;
+                }
+                if ((int) PENDING_INPUTS.getAndAdd(binary, -1) != 1) {
+                    return null;
+                }
+                Object a = binary.first;
+                Object b = binary.second;
+                binary.first = null;
+                binary.second = null;
+                return execute(a, b);
+            }
+            if (!PENDING_INPUTS.compareAndSet(binary, 1, 0)) {
+                return null;
+            }
+        }
+        return execute(in, null);
+    }
+
+    private Promise<?> execute(Object a, Object b) {
+        if (result != null) {
+            return null;
+        }
+        Executor async = executor;
+        if (async != null) {
+            try {
+                async.execute(() -> {
+                    Object r = compute(a, b);
+                    if (r != PENDING) {
+                        completeWith(r);
+                    }
+                });
+            } catch (Throwable ex) {
+                return RESULT.compareAndSet(this, null, new Failure(ex)) ? this : null;
+            }
+            return null;
+        }
+        Object r = compute(a, b);
+        return r != PENDING && RESULT.compareAndSet(this, null, r) ? this : null;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object compute(Object a, Object b) {
+        Object action = fn;
+        fn = null;
+        try {
+            switch (mode) {
+            case APPLY:
+                return a instanceof Failure ? propagate(a) : encode(((Function) action).apply(decode(a)));
+            case ACCEPT:
+                if (a instanceof Failure) {
+                    return propagate(a);
+                }
+                ((Consumer) action).accept(decode(a));
+                return NIL;
+            case RUN:
+                if (a instanceof Failure) {
+                    return propagate(a);
+                }
+                ((Runnable) action).run();
+                return NIL;
+            case HANDLE:
+                return encode(((BiFunction) action).apply(valueOf(a), exceptionOf(a)));
+            case WHEN: {
+                Throwable ex = exceptionOf(a);
+                try {
+                    ((BiConsumer) action).accept(valueOf(a), ex);
+                } catch (Throwable th) {
+                    if (ex == null) {
+                        return new Failure(wrap(th));
+                    }
+                    if (ex != th) {
+                        ex.addSuppressed(th);
+                    }
+                }
+                return ex == null ? a : propagate(a);
+            }
+            case EXCEPTIONALLY:
+                return a instanceof Failure ? encode(((Function) action).apply(((Failure) a).ex)) : a;
+            case COMPOSE: {
+                if (a instanceof Failure) {
+                    return propagate(a);
+                }
+                CompletionStage<?> stage = (CompletionStage<?>) ((Function) action).apply(decode(a));
+                stage.whenComplete((v, th) -> completeWith(th == null ? encode(v) : new Failure(wrap(th))));
+                return PENDING;
+            }
+            case COMBINE:
+                if (a instanceof Failure || b instanceof Failure) {
+                    return propagate(a instanceof Failure ? a : b);
+                }
+                return encode(((BiFunction) action).apply(decode(a), decode(b)));
+            case ACCEPT_BOTH:
+                if (a instanceof Failure || b instanceof Failure) {
+                    return propagate(a instanceof Failure ? a : b);
+                }
+                ((BiConsumer) action).accept(decode(a), decode(b));
+                return NIL;
+            case RUN_BOTH:
+                if (a instanceof Failure || b instanceof Failure) {
+                    return propagate(a instanceof Failure ? a : b);
+                }
+                ((Runnable) action).run();
+                return NIL;
+            default:
+                throw new IllegalStateException("unexpected mode: " + mode);
+            }
+        } catch (Throwable th) {
+            return new Failure(wrap(th));
+        }
+    }
+
+    /**
+     * 
+     * @Description 先自旋再 park 等待结果；timed 时超时返回 null
+     * @param interruptible
+     * @param timed
+     * @param nanos
+     * @return Object
+     * @throws InterruptedException
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:02:16
+     */
+    private Object await(boolean interruptible, boolean timed, long nanos) throws InterruptedException {
+        Object r;
+        for (int spins = SPINS; (r = result) == null && spins > 0; spins--) {
+            Thread.onSpinWait();
+        }
+        if (r != null) {
+            return r;
+        }
+        if (interruptible && Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        NodePool pool = POOL.get();
+        Promise<?> waiter = pool.obtain(WAITER, Thread.currentThread());
+        if (!push(waiter)) {
+            pool.recycle(waiter);
+            return result;
+        }
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        boolean interrupted = false;
+        while ((r = result) == null) {
+            if (timed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                if (interruptible) {
+                    throw new InterruptedException();
+                }
+                interrupted = true;
+            }
+        }
+        // 节点还在栈上（超时、或完成线程还没执行到它）时放弃复用，由完成线程处理后等待回收
+        if (r != null && (int) MODE.getAcquire(waiter) == FIRED) {
+            pool.recycle(waiter);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return r;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T reportGet(Object r) throws ExecutionException {
+        if (r instanceof Failure) {
+            Throwable ex = ((Failure) r).ex;
+            if (ex instanceof CancellationException) {
+                throw (CancellationException) ex;
+            }
+            if (ex instanceof CompletionException && ex.getCause() != null) {
+                ex = ex.getCause();
+            }
+            throw new ExecutionException(ex);
+        }
+        return (T) decode(r);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T reportJoin(Object r) {
+        if (r instanceof Failure) {
+            Throwable ex = ((Failure) r).ex;
+            if (ex instanceof CancellationException) {
+                throw (CancellationException) ex;
+            }
+            throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+        }
+        return (T) decode(r);
+    }
+
+    private static Executor screen(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        return executor;
+    }
+
+    private static Object encode(Object value) {
+        return value == null ? NIL : value;
+    }
+
+    private static Object decode(Object r) {
+        return r == NIL ? null : r;
+    }
+
+    private static Object valueOf(Object r) {
+        return r instanceof Failure ? null : decode(r);
+    }
+
+    private static Throwable exceptionOf(Object r) {
+        return r instanceof Failure ? ((Failure) r).ex : null;
+    }
+
+    private static Throwable wrap(Throwable ex) {
+        return ex instanceof CompletionException ? ex : new CompletionException(ex);
+    }
+
+    // 依赖阶段收到的异常统一用 CompletionException 包装，已经包装过的直接复用同一个结果
+    private static Object propagate(Object failure) {
+        Throwable ex = ((Failure) failure).ex;
+        return ex instanceof CompletionException ? failure : new Failure(new CompletionException(ex));
+    }
+
+    /**
+     * 
+     * @Description 二元阶段（thenCombine、applyToEither 等）多出的状态，一元阶段不需要为它们占用空间
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:30:12
+     */
+    private static final class BiPromise<T> extends Promise<T> {
+        final int arity;
+
+        Object first;
+
+        Object second;
+
+        // BOTH 时等待的输入个数，EITHER 时为 1，第一个到达的输入把它改为 0
+        int pendingInputs;
+
+        BiPromise(int mode, Object fn, Executor executor, int arity) {
+            super(mode, fn, executor);
+            this.arity = arity;
+            this.pendingInputs = arity == BOTH ? 2 : 1;
+        }
+    }
+
+    private static final class Failure {
+        final Throwable ex;
+
+        Failure(Throwable ex) {
+            this.ex = ex;
+        }
+    }
+
+    /**
+     * 
+     * @Description 每个线程缓存少量等待节点和中继节点，节点只在确定没有其他线程会再访问时才放回
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午9:05:48
+     */
+    private static final class NodePool {
+        private static final int CAPACITY = 64;
+
+        private Promise<?> head;
+
+        private int size;
+
+        Promise<?> obtain(int mode, Object fn) {
+            Promise<?> node = head;
+            if (node == null) {
+                node = new Promise<>();
+            } else {
+                head = node.next;
+                node.next = null;
+                size--;
+            }
+            node.mode = mode;
+            node.fn = fn;
+            return node;
+        }
+
+        void recycle(Promise<?> node) {
+            node.fn = null;
+            node.input = null;
+            node.mode = 0;
+            if (size < CAPACITY) {
+                node.next = head;
+                head = node;
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * @Description 非阻塞的令牌桶限流器：acquire 返回一个许可的 CompletionStage，等待许可时不占用线程，调用方在许可上串联真正的请求。
+ *                实现为 GCRA（虚拟调度时间）：只用一个 AtomicLong 记录下一个许可的理论发放时间，每次 acquire 用 CAS 预定一个时间点，
+ *                已经到点的立即完成，否则交给时间轮在该时间点完成。许可按预定的时间点而不是实际触发时间计算，
+ *                时间轮的 tick 误差不会累积，长期速率严格等于配额，也不会因为集中唤醒出现空档
+ * @date  2026年10月18日下午10:55:47
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+
+    // 理论发放时间允许领先当前时间的量，空闲过后最多可以一次发出 burst 个许可
+    private final long burstNanos;
+
+    private final Executor completionExecutor;
+
+    private final long startNanos = System.nanoTime();
+
+    // 下一个许可的理论发放时间，相对 startNanos
+    private final AtomicLong nextFreeNanos = new AtomicLong();
+
+    /**
+     * @param permitsPerSecond   配额，每秒发放的许可数
+     * @param burst              空闲后允许一次发放的最大许可数，至少为 1
+     * @param completionExecutor 完成等待中的许可的执行器，后续阶段在它上面执行而不是在定时器线程上
+     */
+    public RateLimiter(double permitsPerSecond, int burst, Executor completionExecutor) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive: " + permitsPerSecond + ", " + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.completionExecutor = completionExecutor;
+    }
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, new CompletableFuture<Void>().defaultExecutor());
+    }
+
+    /**
+     * 
+     * @Description 获取一个许可，许可可用时返回的阶段完成
+     * @return CompletionStage<Void>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:58:20
+     */
+    public CompletionStage<Void> acquire() {
+        return acquire(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 
+     * @Description 获取一个许可，需要等待的时间超过 maxWait 时不预定许可，返回的阶段以 RejectedExecutionException 失败
+     * @param maxWait
+     * @param unit
+     * @return CompletionStage<Void>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:00:03
+     */
+    public CompletionStage<Void> acquire(long maxWait, TimeUnit unit) {
+        long maxWaitNanos = unit.toNanos(maxWait);
+        long now = System.nanoTime() - startNanos;
+        long delay;
+        for (;;) {
+            long nextFree = nextFreeNanos.get();
+            long slot = Math.max(nextFree, now);
+            // 理论发放时间领先当前时间不超过突发量时桶里还有令牌，否则等到领先量回落到突发量
+            delay = slot - burstNanos - now;
+            if (delay > maxWaitNanos) {
+                CompletableFuture<Void> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(new RejectedExecutionException("rate limit wait exceeds " + maxWait + " " + unit));
+                return rejected;
+            }
+            if (nextFreeNanos.compareAndSet(nextFree, slot + intervalNanos)) {
+                break;
+            }
+        }
+        if (delay <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        HashedWheelTimer.shared().newTimeout(() -> completionExecutor.execute(() -> permit.complete(null)), delay, TimeUnit.NANOSECONDS);
+        return permit;
+    }
+
+    /**
+     * 
+     * @Description 立即可用时获取一个许可，否则不预定并返回 false
+     * @return boolean
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午11:01:37
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime() - startNanos;
+        for (;;) {
+            long nextFree = nextFreeNanos.get();
+            long slot = Math.max(nextFree, now);
+            if (slot - burstNanos > now) {
+                return false;
+            }
+            if (nextFreeNanos.compareAndSet(nextFree, slot + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    public double permitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        long backlog = nextFreeNanos.get() - burstNanos - (System.nanoTime() - startNanos);
+        return "RateLimiter (permitsPerSecond=" + permitsPerSecond() + ", queuedMillis=" + Math.max(0, TimeUnit.NANOSECONDS.toMillis(backlog)) + ")";
+    }
+}
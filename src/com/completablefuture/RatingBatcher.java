@@ -0,0 +1,163 @@
+package com.completablefuture;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 
+ * @Description 评分批量合并器：在时间窗口内或达到最大批量时，把多次 rating(manufacturerId) 请求合并为一次批量查询，
+ *                相同 manufacturerId 只查询一次，查询结果完成所有等待中的 CompletionStage。
+ *                窗口由共享的时间轮计时，精度为一个 tick（10ms），到期后在 executor 上发出批量查询
+ * @date  2026年10月18日上午9:30:12
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class RatingBatcher implements AutoCloseable {
+
+    private final Function<Set<Integer>, Map<Integer, Float>> bulkLoader;
+
+    private final int maxBatchSize;
+
+    private final long windowMillis;
+
+    private final Executor executor;
+
+    private Map<Integer, List<CompletableFuture<Float>>> pending = new LinkedHashMap<>();
+
+    private HashedWheelTimer.Timeout scheduledFlush;
+
+    public RatingBatcher(Function<Set<Integer>, Map<Integer, Float>> bulkLoader, int maxBatchSize, long windowMillis) {
+        this(bulkLoader, maxBatchSize, windowMillis, ForkJoinPool.commonPool());
+    }
+
+    public RatingBatcher(Function<Set<Integer>, Map<Integer, Float>> bulkLoader, int maxBatchSize, long windowMillis, Executor executor) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative: " + windowMillis);
+        }
+        this.bulkLoader = bulkLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMillis = windowMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * 
+     * @Description 提交一次评分请求，结果在所属批次查询完成后返回
+     * @param manufacturerId
+     * @return CompletionStage<Float>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 上午9:31:40
+     */
+    public CompletionStage<Float> rating(int manufacturerId) {
+        CompletableFuture<Float> result = new CompletableFuture<>();
+        Map<Integer, List<CompletableFuture<Float>>> batch = null;
+        synchronized (this) {
+            pending.computeIfAbsent(manufacturerId, k -> new ArrayList<>()).add(result);
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = HashedWheelTimer.shared().newTimeout(this::scheduleFlush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return result;
+    }
+
+    /**
+     * 
+     * @Description 立即发出当前窗口内收集到的请求
+     * @return void
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 上午9:33:05
+     */
+    public void flush() {
+        Map<Integer, List<CompletableFuture<Float>>> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        dispatch(batch);
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    // 在定时器线程上执行；executor 拒绝时取走当前窗口并让其中的请求失败，同时清掉 scheduledFlush，之后的请求会重新开窗口
+    private void scheduleFlush() {
+        try {
+            executor.execute(this::flush);
+        } catch (RuntimeException e) {
+            Map<Integer, List<CompletableFuture<Float>>> batch;
+            synchronized (this) {
+                batch = drain();
+            }
+            fail(batch, e);
+        }
+    }
+
+    private Map<Integer, List<CompletableFuture<Float>>> drain() {
+        Map<Integer, List<CompletableFuture<Float>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel();
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<Integer, List<CompletableFuture<Float>>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Map<Integer, Float>> loaded;
+        try {
+            loaded = CompletableFuture.supplyAsync(() -> bulkLoader.apply(batch.keySet()), executor);
+        } catch (RuntimeException e) {
+            // 已经从 pending 中取走的请求不会再被发出，直接失败
+            fail(batch, e);
+            return;
+        }
+        loaded.whenComplete((ratings, th) -> {
+            if (th != null) {
+                fail(batch, th);
+                return;
+            }
+            if (ratings == null) {
+                fail(batch, new IllegalStateException("bulkLoader returned null"));
+                return;
+            }
+            batch.forEach((manufacturerId, waiters) -> {
+                Float rating = ratings.get(manufacturerId);
+                for (CompletableFuture<Float> waiter : waiters) {
+                    if (rating == null) {
+                        waiter.completeExceptionally(new IllegalStateException("no rating for manufacturer " + manufacturerId));
+                    } else {
+                        waiter.complete(rating);
+                    }
+                }
+            });
+        });
+    }
+
+    private static void fail(Map<Integer, List<CompletableFuture<Float>>> batch, Throwable th) {
+        batch.values().forEach(waiters -> waiters.forEach(waiter -> waiter.completeExceptionally(th)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.completablefuture;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 
+ * @Description 评分异步缓存：以 manufacturerId 为键缓存 CompletableFuture<Float>，并发请求同一个键时共享同一个进行中的 future，
+ *                支持写入后过期（expire-after-write）和基于 LRU 的容量上限，并统计命中、未命中和淘汰次数
+ * @date  2026年10月18日上午10:02:45
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class RatingCache {
+
+    private final Function<Integer, ? extends CompletionStage<Float>> loader;
+
+    private final long expireAfterWriteNanos;
+
+    private final Map<Integer, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public RatingCache(Function<Integer, ? extends CompletionStage<Float>> loader, int maximumSize, long expireAfterWrite, TimeUnit unit) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.loader = loader;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        // accessOrder=true，按访问顺序排列，超过容量时淘汰最久未访问的条目
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 
+     * @Description 获取评分：命中时返回已缓存（或进行中）的 future，未命中时由当前调用方发起加载。
+     *              返回的是共享 future 的只读视图，调用方无法 complete、cancel 或 obtrude 它，不会影响其他调用方拿到的值
+     * @param manufacturerId
+     * @return CompletionStage<Float>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 上午10:05:18
+     */
+    public CompletionStage<Float> get(int manufacturerId) {
+        Entry entry;
+        boolean load = false;
+        synchronized (entries) {
+            entry = entries.get(manufacturerId);
+            if (entry == null || entry.isExpired(System.nanoTime())) {
+                entry = new Entry();
+                entries.put(manufacturerId, entry);
+                load = true;
+            }
+        }
+        if (!load) {
+            hits.increment();
+            return entry.future.minimalCompletionStage();
+        }
+        misses.increment();
+        // 加载在锁外执行，其他调用方只会拿到同一个进行中的 future，不会阻塞在锁上
+        Entry loading = entry;
+        try {
+            loader.apply(manufacturerId).whenComplete((rating, th) -> {
+                if (th == null) {
+                    loading.writeTime = System.nanoTime();
+                    loading.future.complete(rating);
+                } else {
+                    invalidate(manufacturerId, loading);
+                    loading.future.completeExceptionally(th);
+                }
+            });
+        } catch (RuntimeException e) {
+            invalidate(manufacturerId, loading);
+            loading.future.completeExceptionally(e);
+        }
+        return loading.future.minimalCompletionStage();
+    }
+
+    public void invalidate(int manufacturerId) {
+        synchronized (entries) {
+            entries.remove(manufacturerId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 1.0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "RatingCache (size=" + size() + ", hits=" + hitCount() + ", misses=" + missCount() + ", evictions=" + evictionCount() + ", hitRate=" + hitRate();
+    }
+
+    private void invalidate(int manufacturerId, Entry expected) {
+        synchronized (entries) {
+            if (entries.get(manufacturerId) == expected) {
+                entries.remove(manufacturerId);
+            }
+        }
+    }
+
+    private final class Entry {
+        final CompletableFuture<Float> future = new CompletableFuture<>();
+
+        // 加载完成前为 0，进行中的条目不会过期
+        volatile long writeTime;
+
+        boolean isExpired(long now) {
+            long written = writeTime;
+            return written != 0 && now - written >= expireAfterWriteNanos;
+        }
+    }
+}
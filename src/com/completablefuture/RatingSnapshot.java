@@ -0,0 +1,297 @@
+package com.completablefuture;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 
+ * @Description 持久化的评分快照：评分按 manufacturerId 直接定位写入内存映射的定长文件，文件头记录版本号和最后写入时间。
+ *                新进程映射已有的文件后可以立即返回上次运行算出的评分，再在后台刷新，不必每次启动都重新付出查询延迟。
+ *                文件布局：32 字节文件头（magic、格式版本、容量、版本号、时间戳），之后每个 manufacturerId 一条 16 字节记录
+ *                （评分、是否存在、写入时间）。只在一个进程内写；其他进程可以同时映射读取，但看到的评分和存在标记之间没有顺序保证
+ * @date  2026年10月18日下午10:05:33
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class RatingSnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x52415447;
+
+    private static final int FORMAT = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int RECORD_SIZE = 16;
+
+    private static final int CAPACITY_OFFSET = 8;
+
+    private static final int VERSION_OFFSET = 16;
+
+    private static final int TIMESTAMP_OFFSET = 24;
+
+    private static final int PRESENT = 1;
+
+    // 按 int 访问缓冲区，用 release 写、acquire 读存在标记
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final Executor refreshExecutor;
+
+    // 本进程内已经发起过的后台刷新，每个 manufacturerId 只刷新一次
+    private final Map<Integer, CompletableFuture<Void>> refreshes = new ConcurrentHashMap<>();
+
+    private volatile IntConsumer changeListener = manufacturerId -> {
+    };
+
+    private RatingSnapshot(FileChannel channel, MappedByteBuffer buffer, int capacity, Executor refreshExecutor) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 
+     * @Description 打开快照文件，不存在时按 capacity 创建；已存在时沿用文件中记录的容量
+     * @param file
+     * @param capacity        可以保存的 manufacturerId 范围 [0, capacity)
+     * @param refreshExecutor 执行后台刷新的执行器
+     * @return RatingSnapshot
+     * @throws IOException 文件不是评分快照或者无法读写
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:08:47
+     */
+    public static RatingSnapshot open(Path file, int capacity, Executor refreshExecutor) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be in (0, " + MAX_CAPACITY + "]: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (!created) {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException("not a rating snapshot: " + file);
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT) {
+                    throw new IOException("not a rating snapshot: " + file);
+                }
+                capacity = header.getInt(CAPACITY_OFFSET);
+                if (capacity <= 0 || capacity > MAX_CAPACITY) {
+                    throw new IOException("corrupt rating snapshot capacity " + capacity + ": " + file);
+                }
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+            }
+            return new RatingSnapshot(channel, buffer, capacity, refreshExecutor);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 
+     * @Description 打开当前目录下的 ratings-{example}.snapshot。每个示例各用一个文件，一个示例的运行不会让另一个示例的计时变快
+     * @param example         示例名，如 completable-future
+     * @param refreshExecutor
+     * @return RatingSnapshot
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:10:02
+     */
+    public static RatingSnapshot openDefault(String example, Executor refreshExecutor) {
+        try {
+            return open(Paths.get("ratings-" + example + ".snapshot"), 1024, refreshExecutor);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 
+     * @Description 快照中的评分，没有记录时返回 Float.NaN
+     * @param manufacturerId
+     * @return float
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:11:20
+     */
+    public float rating(int manufacturerId) {
+        if (!contains(manufacturerId)) {
+            return Float.NaN;
+        }
+        return buffer.getFloat(offset(manufacturerId));
+    }
+
+    public boolean contains(int manufacturerId) {
+        return manufacturerId >= 0 && manufacturerId < capacity && (int) INT.getAcquire(buffer, offset(manufacturerId) + 4) == PRESENT;
+    }
+
+    /**
+     * 
+     * @Description 有快照时立即返回快照中的评分，并在后台用 loader 刷新一次；没有时用 loader 加载并写入快照。
+     *              负数评分是加载失败时的兜底值，不写入快照
+     * @param manufacturerId
+     * @param loader
+     * @return CompletionStage<Float>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:14:06
+     */
+    public CompletionStage<Float> rating(int manufacturerId, Function<Integer, ? extends CompletionStage<Float>> loader) {
+        float rating = rating(manufacturerId);
+        if (Float.isNaN(rating)) {
+            return loader.apply(manufacturerId).thenApply(loaded -> {
+                put(manufacturerId, loaded);
+                return loaded;
+            });
+        }
+        refreshOnce(manufacturerId, loader);
+        return CompletableFuture.completedFuture(rating);
+    }
+
+    /**
+     * 
+     * @Description 在后台用 loader 刷新快照中已有的这些 manufacturerId，与 rating 发起的后台刷新共用，每个只刷新一次；
+     *              查到不同的评分时通知变化监听器。不经过 rating 的 manufacturerId 也能发现变化，比如增量评分中的干净车辆。
+     *              快照中还没有的 manufacturerId 由 rating 加载写入，第一次写入不算变化，这里跳过
+     * @param manufacturerIds
+     * @param loader
+     * @return CompletionStage<Void> 所有刷新都写入快照后完成；刷新失败时保留快照中的评分，不会让返回的阶段失败
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 下午4:05:12
+     */
+    public CompletionStage<Void> refresh(Collection<Integer> manufacturerIds, Function<Integer, ? extends CompletionStage<Float>> loader) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int manufacturerId : manufacturerIds) {
+            if (contains(manufacturerId)) {
+                pending.add(refreshOnce(manufacturerId, loader));
+            }
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 
+     * @Description 写入一条评分，值有变化时递增版本号并更新时间戳；超出容量的 manufacturerId 不保存。
+     *              覆盖了已有的不同评分时通知变化监听器
+     * @param manufacturerId
+     * @param rating
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午10:16:52
+     */
+    public void put(int manufacturerId, float rating) {
+        // 在锁外通知，监听器可以加自己的锁
+        if (write(manufacturerId, rating)) {
+            changeListener.accept(manufacturerId);
+        }
+    }
+
+    /**
+     * 
+     * @Description 注册评分变化监听器，后台刷新或 put 把已有的评分改成不同的值时以 manufacturerId 调用，第一次写入不算变化
+     * @param listener
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月19日 上午2:20:36
+     */
+    public void onChange(IntConsumer listener) {
+        this.changeListener = listener;
+    }
+
+    public long version() {
+        return buffer.getLong(VERSION_OFFSET);
+    }
+
+    public long timestamp() {
+        return buffer.getLong(TIMESTAMP_OFFSET);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "RatingSnapshot (version=" + version() + ", timestamp=" + timestamp() + ", capacity=" + capacity + ")";
+    }
+
+    private CompletableFuture<Void> refreshOnce(int manufacturerId, Function<Integer, ? extends CompletionStage<Float>> loader) {
+        return refreshes.computeIfAbsent(manufacturerId, id -> CompletableFuture.supplyAsync(() -> loader.apply(id), refreshExecutor)
+                .thenCompose(loading -> loading).handle((loaded, th) -> {
+                    if (th == null) {
+                        put(id, loaded);
+                    }
+                    return null;
+                }));
+    }
+
+    private synchronized boolean write(int manufacturerId, float rating) {
+        if (manufacturerId < 0 || manufacturerId >= capacity || rating < 0 || Float.isNaN(rating)) {
+            return false;
+        }
+        int offset = offset(manufacturerId);
+        boolean present = buffer.getInt(offset + 4) == PRESENT;
+        if (present && buffer.getFloat(offset) == rating) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        // 先写评分，再以 release 写入存在标记：本进程内 contains/rating 以 acquire 读到标记时一定能看到评分。
+        // 其他进程读取同一个文件时 Java 内存模型不做保证，只能依赖 CPU 对同一块映射内存的写入顺序
+        buffer.putFloat(offset, rating);
+        buffer.putLong(offset + 8, now);
+        INT.setRelease(buffer, offset + 4, PRESENT);
+        buffer.putLong(VERSION_OFFSET, buffer.getLong(VERSION_OFFSET) + 1);
+        buffer.putLong(TIMESTAMP_OFFSET, now);
+        return present;
+    }
+
+    private static int offset(int manufacturerId) {
+        return HEADER_SIZE + manufacturerId * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,133 @@
+package com.completablefuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 
+ * @Description 指数退避重试：失败后等待 random(0, min(maxDelay, baseDelay * 2^n)) 毫秒（full jitter）再重新发起调用，
+ *                等待交给共享的时间轮定时触发，到期后在 executor 上重新发起调用，等待期间不占用任何线程。
+ *                重试预算限制重试量不超过请求量的 budgetRatio 倍，后端整体故障时不会因为重试把流量放大
+ * @date  2026年10月18日下午7:02:33
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class RetryPolicy {
+
+    // 预算以千分之一个令牌为单位，避免浮点数的 CAS
+    private static final long TOKEN = 1000;
+
+    private final int maxAttempts;
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final long depositPerCall;
+
+    private final long maxBudget;
+
+    private final Executor executor;
+
+    private final AtomicLong budget;
+
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * @param maxAttempts     包括第一次调用在内的最多调用次数
+     * @param baseDelayMillis 第一次重试的退避上限
+     * @param maxDelayMillis  退避上限的最大值
+     * @param budgetRatio     每次调用存入的重试令牌数，如 0.1 表示重试量最多为调用量的 10%
+     * @param maxBudget       预算的初始值和上限（个令牌），保证低流量时也能重试
+     * @param executor        重新发起调用所用的执行器
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, double budgetRatio, int maxBudget, Executor executor) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.depositPerCall = (long) (budgetRatio * TOKEN);
+        this.maxBudget = maxBudget * TOKEN;
+        this.executor = executor;
+        this.budget = new AtomicLong(this.maxBudget);
+    }
+
+    /**
+     * 
+     * @Description 发起调用，失败时在预算允许的范围内按指数退避重试，返回最后一次调用的结果
+     * @param attempt
+     * @return CompletionStage<T>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午7:05:10
+     */
+    public <T> CompletionStage<T> call(Supplier<? extends CompletionStage<T>> attempt) {
+        budget.getAndUpdate(b -> Math.min(maxBudget, b + depositPerCall));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(attempt, 1, result);
+        return result;
+    }
+
+    public long retryCount() {
+        return retries.get();
+    }
+
+    private <T> void attempt(Supplier<? extends CompletionStage<T>> attempt, int attemptNumber, CompletableFuture<T> result) {
+        CompletionStage<T> stage;
+        try {
+            stage = attempt.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            stage = failed;
+        }
+        stage.whenComplete((v, th) -> {
+            if (th == null) {
+                result.complete(v);
+            } else if (result.isDone() || attemptNumber >= maxAttempts || !withdraw()) {
+                result.completeExceptionally(th);
+            } else {
+                retries.incrementAndGet();
+                long delay = backoff(attemptNumber);
+                HashedWheelTimer.shared().newTimeout(() -> retry(attempt, attemptNumber + 1, result, th), delay, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    // 在定时器线程上执行；executor 拒绝重试时以拒绝的异常完成结果，上一次调用的失败作为 suppressed 附上
+    private <T> void retry(Supplier<? extends CompletionStage<T>> attempt, int attemptNumber, CompletableFuture<T> result, Throwable lastFailure) {
+        try {
+            executor.execute(() -> attempt(attempt, attemptNumber, result));
+        } catch (RuntimeException e) {
+            e.addSuppressed(lastFailure);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private boolean withdraw() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private long backoff(int attemptNumber) {
+        long cap = baseDelayMillis << Math.min(attemptNumber - 1, 30);
+        if (cap <= 0 || cap > maxDelayMillis) {
+            cap = maxDelayMillis;
+        }
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,279 @@
+package com.completablefuture;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 
+ * @Description CompletableFuture 各阶段的延迟统计：经过 executor(...) 提交的任务记录在线程池队列中的等待时间、执行时间和执行线程，
+ *                function(...) / biConsumer(...) 记录同步回调的执行时间，track(...) 记录阶段从创建到完成的总耗时。
+ *                用来区分时间是花在线程池排队上还是花在后端延迟上
+ * @date  2026年10月18日下午5:15:03
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class StageMetrics implements StageMetricsMXBean {
+
+    private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+
+    /**
+     * 
+     * @Description 包装 executor：记录任务从提交到开始执行的排队时间、执行时间和执行线程
+     * @param stage
+     * @param executor
+     * @return Executor     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午5:17:21
+     */
+    public Executor executor(String stage, Executor executor) {
+        Stage metrics = stage(stage);
+        return task -> {
+            metrics.submitted.increment();
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                metrics.queued.record(started - submitted);
+                metrics.thread(Thread.currentThread().getName());
+                try {
+                    task.run();
+                } finally {
+                    metrics.running.record(System.nanoTime() - started);
+                }
+            });
+        };
+    }
+
+    public <T, R> Function<T, R> function(String stage, Function<T, R> function) {
+        Stage metrics = stage(stage);
+        return t -> {
+            long started = System.nanoTime();
+            metrics.thread(Thread.currentThread().getName());
+            try {
+                return function.apply(t);
+            } finally {
+                metrics.running.record(System.nanoTime() - started);
+            }
+        };
+    }
+
+    public <T, U> BiConsumer<T, U> biConsumer(String stage, BiConsumer<T, U> consumer) {
+        Stage metrics = stage(stage);
+        return (t, u) -> {
+            long started = System.nanoTime();
+            metrics.thread(Thread.currentThread().getName());
+            try {
+                consumer.accept(t, u);
+            } finally {
+                metrics.running.record(System.nanoTime() - started);
+            }
+        };
+    }
+
+    /**
+     * 
+     * @Description 记录阶段从调用 track 到完成的总耗时，适合 allOf、rating 这类不能包装回调的阶段
+     * @param stage
+     * @param completionStage
+     * @return CompletionStage<T>     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午5:19:08
+     */
+    public <T> CompletionStage<T> track(String stage, CompletionStage<T> completionStage) {
+        Stage metrics = stage(stage);
+        long started = System.nanoTime();
+        completionStage.whenComplete((v, th) -> metrics.completed.record(System.nanoTime() - started));
+        return completionStage;
+    }
+
+    @Override
+    public List<Snapshot> getSnapshots() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        new TreeMap<>(stages).forEach((name, stage) -> snapshots.add(stage.snapshot(name)));
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        stages.values().forEach(Stage::reset);
+    }
+
+    /**
+     * 
+     * @Description 注册到平台 MBeanServer
+     * @return StageMetrics     
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午5:21:30
+     */
+    public StageMetrics registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.completablefuture:type=StageMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register StageMetrics MBean", e);
+        }
+        return this;
+    }
+
+    private Stage stage(String name) {
+        return stages.computeIfAbsent(name, n -> new Stage());
+    }
+
+    private static final class Stage {
+        // 经 executor(...) 提交的任务数，包括还在排队的
+        final LongAdder submitted = new LongAdder();
+
+        final LatencyHistogram queued = new LatencyHistogram();
+
+        final LatencyHistogram running = new LatencyHistogram();
+
+        final LatencyHistogram completed = new LatencyHistogram();
+
+        final Map<String, LongAdder> threads = new ConcurrentHashMap<>();
+
+        void thread(String name) {
+            LongAdder adder = threads.get(name);
+            if (adder == null) {
+                adder = threads.computeIfAbsent(name, n -> new LongAdder());
+            }
+            adder.increment();
+        }
+
+        void reset() {
+            submitted.reset();
+            queued.reset();
+            running.reset();
+            completed.reset();
+            threads.clear();
+        }
+
+        Snapshot snapshot(String name) {
+            Map<String, Long> threadCounts = new TreeMap<>();
+            threads.forEach((thread, count) -> threadCounts.put(thread, count.sum()));
+            return new Snapshot(name, submitted.sum(), running.count(), completed.count(), micros(queued.percentile(0.5)), micros(queued.percentile(0.99)), micros(running.percentile(0.5)),
+                    micros(running.percentile(0.99)), micros(completed.percentile(0.5)), micros(completed.percentile(0.99)), threadCounts.toString());
+        }
+
+        private static long micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+
+    /**
+     * 
+     * @Description 某个阶段的统计快照，时间单位为微秒。三个计数分别统计：提交到 executor 的任务数（包括还在排队的）、
+     *              执行完的任务或回调数、track 记录到完成的阶段数，只经过其中一种统计的阶段其余计数为 0
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午5:23:12
+     */
+    public static final class Snapshot {
+        private final String stage;
+
+        private final long submittedCount;
+
+        private final long runningCount;
+
+        private final long completedCount;
+
+        private final long queuedP50Micros;
+
+        private final long queuedP99Micros;
+
+        private final long runningP50Micros;
+
+        private final long runningP99Micros;
+
+        private final long completedP50Micros;
+
+        private final long completedP99Micros;
+
+        private final String threads;
+
+        @ConstructorProperties({ "stage", "submittedCount", "runningCount", "completedCount", "queuedP50Micros", "queuedP99Micros", "runningP50Micros", "runningP99Micros", "completedP50Micros", "completedP99Micros", "threads" })
+        public Snapshot(String stage, long submittedCount, long runningCount, long completedCount, long queuedP50Micros, long queuedP99Micros, long runningP50Micros, long runningP99Micros, long completedP50Micros, long completedP99Micros, String threads) {
+            this.stage = stage;
+            this.submittedCount = submittedCount;
+            this.runningCount = runningCount;
+            this.completedCount = completedCount;
+            this.queuedP50Micros = queuedP50Micros;
+            this.queuedP99Micros = queuedP99Micros;
+            this.runningP50Micros = runningP50Micros;
+            this.runningP99Micros = runningP99Micros;
+            this.completedP50Micros = completedP50Micros;
+            this.completedP99Micros = completedP99Micros;
+            this.threads = threads;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        public long getRunningCount() {
+            return runningCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public long getQueuedP50Micros() {
+            return queuedP50Micros;
+        }
+
+        public long getQueuedP99Micros() {
+            return queuedP99Micros;
+        }
+
+        public long getRunningP50Micros() {
+            return runningP50Micros;
+        }
+
+        public long getRunningP99Micros() {
+            return runningP99Micros;
+        }
+
+        public long getCompletedP50Micros() {
+            return completedP50Micros;
+        }
+
+        public long getCompletedP99Micros() {
+            return completedP99Micros;
+        }
+
+        public String getThreads() {
+            return threads;
+        }
+
+        @Override
+        public String toString() {
+            return "Stage (name=" + stage + ", submitted=" + submittedCount + ", ran=" + runningCount + ", completed=" + completedCount + ", queued p50/p99=" + queuedP50Micros + "/" + queuedP99Micros + " us, running p50/p99=" + runningP50Micros + "/" + runningP99Micros
+                    + " us, completed p50/p99=" + completedP50Micros + "/" + completedP99Micros + " us, threads=" + threads;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.completablefuture;
+
+import java.util.List;
+
+/**
+ * 
+ * @Description 通过 JMX 暴露各阶段的排队和执行延迟，在 jconsole / VisualVM 中查看 com.completablefuture:type=StageMetrics
+ * @date  2026年10月18日下午5:12:40
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public interface StageMetricsMXBean {
+
+    List<StageMetrics.Snapshot> getSnapshots();
+
+    void reset();
+}
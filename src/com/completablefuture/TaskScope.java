@@ -0,0 +1,197 @@
+package com.completablefuture;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * 
+ * @Description 结构化并发的任务作用域：作用域拥有通过 fork 创建的每个子任务，关闭、到达截止时间、或者 FAIL_FAST 策略下任一子任务失败时，
+ *                取消并中断所有未完成的子任务。CompletableFuture.cancel(true) 不会中断正在执行的 supplier，
+ *                所以子任务用 FutureTask 提交到执行器，取消时能中断运行它的线程，被放弃的批次立即释放线程
+ * @date  2026年10月18日下午8:20:37
+ * @version V1.0  
+ * @author 秦涛   (taoqin0203@outlook.com)
+ * <p>Copyright (c) Department of Research and Development/Beijing.</p>
+ */
+public class TaskScope implements AutoCloseable {
+
+    public enum Policy {
+        // 任一子任务失败就关闭作用域，取消其余子任务
+        FAIL_FAST,
+        // 子任务失败不影响其他子任务，由调用方逐个检查结果
+        COLLECT
+    }
+
+    private final Executor executor;
+
+    private final Policy policy;
+
+    private final Queue<CompletableFuture<?>> results = new ConcurrentLinkedQueue<>();
+
+    // 只保存还没有结束的子任务，关闭时逐个取消
+    private final Set<ScopedTask<?>> running = ConcurrentHashMap.newKeySet();
+
+    // 作用域关闭时以关闭原因异常完成
+    private final CompletableFuture<Void> shutdown = new CompletableFuture<>();
+
+    private final HashedWheelTimer.Timeout deadline;
+
+    public TaskScope(Executor executor, Policy policy) {
+        this.executor = executor;
+        this.policy = policy;
+        this.deadline = null;
+    }
+
+    /**
+     * @param executor 执行子任务的执行器
+     * @param policy   子任务失败时的处理策略
+     * @param timeout  作用域的截止时间，到期后以 TimeoutException 关闭作用域
+     * @param unit
+     */
+    public TaskScope(Executor executor, Policy policy, long timeout, TimeUnit unit) {
+        this.executor = executor;
+        this.policy = policy;
+        // 到期后在默认异步执行器上关闭，取消子任务触发的后续阶段不会占用定时器线程
+        Executor closer = new CompletableFuture<Void>().defaultExecutor();
+        this.deadline = HashedWheelTimer.shared().newTimeout(() -> closer.execute(() -> shutdown(new TimeoutException("TaskScope deadline exceeded"))), timeout, unit);
+    }
+
+    /**
+     * 
+     * @Description 在作用域内执行一个子任务，返回的 future 被取消时同样会中断子任务
+     * @param task
+     * @return CompletableFuture<T>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:24:15
+     */
+    public <T> CompletableFuture<T> fork(Callable<T> task) {
+        if (shutdown.isDone()) {
+            throw new IllegalStateException("TaskScope is closed");
+        }
+        ScopedTask<T> child = new ScopedTask<>(task);
+        results.offer(child.result);
+        running.add(child);
+        try {
+            executor.execute(child);
+        } catch (RejectedExecutionException e) {
+            child.reject(e);
+        }
+        // fork 和关闭并发时，关闭可能没有看到刚加入的子任务
+        if (shutdown.isDone()) {
+            child.cancel(true);
+        }
+        return child.result;
+    }
+
+    /**
+     * 
+     * @Description 所有已创建的子任务都结束后完成；作用域被关闭（FAIL_FAST 下子任务失败、到达截止时间、调用 close）时以关闭原因异常完成
+     * @return CompletableFuture<Void>
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:27:40
+     */
+    public CompletableFuture<Void> join() {
+        List<CompletableFuture<?>> children = results.stream().collect(Collectors.toList());
+        CompletableFuture<Void> joined = new CompletableFuture<>();
+        CompletableFuture.allOf(children.toArray(new CompletableFuture<?>[0])).whenComplete((v, th) -> {
+            if (th == null || policy == Policy.COLLECT) {
+                joined.complete(null);
+            } else {
+                joined.completeExceptionally(th);
+            }
+        });
+        shutdown.whenComplete((v, th) -> joined.completeExceptionally(th));
+        return joined;
+    }
+
+    public boolean isShutdown() {
+        return shutdown.isDone();
+    }
+
+    /**
+     * 
+     * @Description 关闭作用域，取消并中断所有未完成的子任务；已经结束的子任务不受影响
+     * @version V1.0
+     * @auth    秦涛   (taoqin0203@outlook.com)
+     * @date 2026年10月18日 下午8:29:03
+     */
+    @Override
+    public void close() {
+        shutdown(new CancellationException("TaskScope closed"));
+    }
+
+    private void shutdown(Throwable cause) {
+        if (!shutdown.completeExceptionally(cause)) {
+            return;
+        }
+        if (deadline != null) {
+            deadline.cancel();
+        }
+        for (ScopedTask<?> child : running) {
+            child.cancel(true);
+        }
+    }
+
+    private final class ScopedTask<T> extends FutureTask<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        ScopedTask(Callable<T> task) {
+            super(task);
+            // 调用方取消返回的 future 时中断子任务
+            result.whenComplete((v, th) -> {
+                if (result.isCancelled()) {
+                    cancel(true);
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            super.run();
+            // 取消时的中断只针对本任务，清除后线程回到执行器中不会影响下一个任务
+            if (isCancelled()) {
+                Thread.interrupted();
+            }
+        }
+
+        void reject(Throwable th) {
+            setException(th);
+        }
+
+        @Override
+        protected void done() {
+            running.remove(this);
+            if (isCancelled()) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                result.complete(get());
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+                if (policy == Policy.FAIL_FAST) {
+                    shutdown(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                // done() 时任务已经结束，get() 不会阻塞
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.completablefuture;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * 
@@ -13,22 +17,34 @@ import java.util.List;
  */
 public class WithoutCompletableFutureExample {
 
+    static LongSupplier delayMillis = () -> 5000;
+
+    static RatingCache cache = new RatingCache(manufacturer -> CompletableFuture.completedFuture(rating(manufacturer)), 1000, 10, TimeUnit.MINUTES);
+
     public static void main(String[] args) {
         long start = System.currentTimeMillis();
 
+        // 串行基准只在调用线程上逐个评分，评分快照和增量评分只在 CompletableFutureExample 中使用，不会在后台并行查询
         List<Car> cars = cars();
-        cars.forEach(car -> {
-            float rating = rating(car.manufacturerId);
-            car.setRating(rating);
-        });
+        rate(cars, manufacturer -> cache.get(manufacturer).toCompletableFuture().join());
 
-        cars.forEach(System.out::println);
+        AsyncSink<Car> out = AsyncSink.stdout(8192, Car::appendTo);
+        cars.forEach(out);
+        out.flush();
 
         long end = System.currentTimeMillis();
 
         System.out.println("Took " + (end - start) + " ms.");
     }
 
+    static List<Car> rate(List<Car> cars, Function<Integer, Float> rater) {
+        cars.forEach(car -> {
+            float rating = rater.apply(car.manufacturerId);
+            car.setRating(rating);
+        });
+        return cars;
+    }
+
     static float rating(int manufacturer) {
         try {
             simulateDelay();
@@ -57,6 +73,6 @@ public class WithoutCompletableFutureExample {
     }
 
     private static void simulateDelay() throws InterruptedException {
-        Thread.sleep(5000);
+        Thread.sleep(delayMillis.getAsLong());
     }
 }